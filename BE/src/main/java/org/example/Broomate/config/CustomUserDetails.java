@@ -15,14 +15,21 @@ public class CustomUserDetails implements UserDetails {
     private final String password;
     private final Account.AccountRoleEnum role;  // TENANT or LANDLORD
     private final Collection<? extends GrantedAuthority> authorities;
+    private final long tokenGeneration;  // Account's current token generation (0 when not loaded)
 
     public CustomUserDetails(String userId, String email, String password, Account.AccountRoleEnum role,
                              Collection<? extends GrantedAuthority> authorities) {
+        this(userId, email, password, role, authorities, 0);
+    }
+
+    public CustomUserDetails(String userId, String email, String password, Account.AccountRoleEnum role,
+                             Collection<? extends GrantedAuthority> authorities, long tokenGeneration) {
         this.userId = userId;
         this.email = email;
         this.password = password;
         this.role = role;
         this.authorities = authorities;
+        this.tokenGeneration = tokenGeneration;
     }
 
     @Override
@@ -1,28 +1,42 @@
 package org.example.Broomate.config;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.example.Broomate.config.CustomUserDetails;
+import org.example.Broomate.model.Account;
 import org.example.Broomate.service.CustomUserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
 
+@Slf4j
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService customUserDetailsService;
+    private final TokenRevocationRegistry revocationRegistry;
 
-    public JwtRequestFilter(JwtUtil jwtUtil, CustomUserDetailsService customUserDetailsService) {
+    // true: build the principal from the verified token's claims, without reading the account
+    @Value("${broomate.auth.claims-only:true}")
+    private boolean claimsOnly;
+
+    public JwtRequestFilter(JwtUtil jwtUtil, CustomUserDetailsService customUserDetailsService,
+                            TokenRevocationRegistry revocationRegistry) {
         this.jwtUtil = jwtUtil;
         this.customUserDetailsService = customUserDetailsService;
+        this.revocationRegistry = revocationRegistry;
     }
 
     @Override
@@ -31,20 +45,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            email = jwtUtil.extractEmail(jwt);
-        }
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
+            CustomUserDetails userDetails = claimsOnly ? authenticateFromClaims(jwt) : authenticateFromAccount(jwt);
 
-            // ✅ Load CustomUserDetails
-            CustomUserDetails userDetails = (CustomUserDetails) this.customUserDetailsService.loadUserByUsername(email);
-
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null) {
 
                 // ✅ Store CustomUserDetails as principal
                 UsernamePasswordAuthenticationToken authenticationToken =
@@ -61,4 +68,56 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Principal from the signed userId / email / role claims; no database read
+     */
+    private CustomUserDetails authenticateFromClaims(String jwt) {
+        DecodedJWT token = jwtUtil.verifyToken(jwt);
+        if (token == null) {
+            return null;
+        }
+
+        String userId = token.getClaim("userId").asString();
+        String role = token.getClaim("role").asString();
+        if (userId == null || role == null || revocationRegistry.isRevoked(userId, token)) {
+            return null;
+        }
+
+        Account.AccountRoleEnum accountRole;
+        try {
+            accountRole = Account.AccountRoleEnum.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting token of user {} with unknown role {}", userId, role);
+            return null;
+        }
+
+        return new CustomUserDetails(
+                userId,
+                token.getSubject(),
+                null,
+                accountRole,
+                Collections.singletonList(new SimpleGrantedAuthority(accountRole.toString()))
+        );
+    }
+
+    /**
+     * Principal loaded from the account document (one or two Firestore queries per request)
+     */
+    private CustomUserDetails authenticateFromAccount(String jwt) {
+        DecodedJWT token = jwtUtil.verifyToken(jwt);
+        if (token == null || token.getSubject() == null) {
+            return null;
+        }
+
+        // ✅ Load CustomUserDetails
+        CustomUserDetails userDetails = (CustomUserDetails) this.customUserDetailsService.loadUserByUsername(token.getSubject());
+
+        // The account's generation holds on every node and across restarts
+        if (JwtUtil.tokenGenerationOf(token) < userDetails.getTokenGeneration()
+                || revocationRegistry.isRevoked(userDetails.getUserId(), token)) {
+            return null;
+        }
+        return userDetails;
+    }
+}
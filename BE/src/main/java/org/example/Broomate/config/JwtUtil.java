@@ -6,20 +6,53 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.Broomate.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * Verification goes through one shared verifier, and verified tokens are kept in a
+ * bounded cache keyed by the SHA-256 of the token until they expire (or at most
+ * {@code broomate.auth.token-cache.ttl-seconds}), so a client repeating the same
+ * token is verified once. Cache statistics are published as broomate.cache.jwt.*.
+ */
 @Component
 public class JwtUtil {
 
     private static final String SECRET_KEY = "your-secret-key-change-this-in-production-must-be-at-least-256-bits-long";
     private static final String ISSUER = "broomate-app";
-    private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 10;
+    static final long EXPIRATION_TIME = 1000 * 60 * 60 * 10;
+    private static final String TOKEN_GENERATION_CLAIM = "tokenGeneration";
+    private static final String METRIC_PREFIX = "broomate.cache.jwt";
 
-    private Algorithm getAlgorithm() {
-        return Algorithm.HMAC256(SECRET_KEY);
+    // Algorithm and JWTVerifier are immutable and thread-safe
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256(SECRET_KEY);
+    private static final JWTVerifier VERIFIER = JWT.require(ALGORITHM)
+            .withIssuer(ISSUER)
+            .build();
+
+    private final BoundedTtlCache<String, DecodedJWT> verifiedTokens;
+
+    public JwtUtil(@Value("${broomate.auth.token-cache.max-size:10000}") int maxSize,
+                   @Value("${broomate.auth.token-cache.ttl-seconds:300}") long ttlSeconds,
+                   MeterRegistry meterRegistry) {
+        this.verifiedTokens = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+
+        Gauge.builder(METRIC_PREFIX + ".size", verifiedTokens, BoundedTtlCache::size).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", verifiedTokens, c -> c.stats().hits()).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", verifiedTokens, c -> c.stats().misses()).register(meterRegistry);
     }
 
     public String extractEmail(String token) {
@@ -60,40 +93,62 @@ public class JwtUtil {
         }
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     // ✅ Update to accept email, userId, role
-    public String generateToken(String email, String userId, String role) {
+    public String generateToken(String email, String userId, String role, long tokenGeneration) {
         try {
-            Algorithm algorithm = getAlgorithm();
             return JWT.create()
                     .withSubject(email)
                     .withClaim("userId", userId)      // ✅ Add userId
                     .withClaim("role", role)          // ✅ Add role
+                    .withClaim(TOKEN_GENERATION_CLAIM, tokenGeneration)
                     .withIssuer(ISSUER)
                     .withIssuedAt(new Date(System.currentTimeMillis()))
                     .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                    .sign(algorithm);
+                    .sign(ALGORITHM);
         } catch (JWTCreationException exception) {
             throw new RuntimeException("Failed to create JWT token", exception);
         }
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
+    /**
+     * Verify signature, issuer and expiry, returning the decoded token or null if it is not valid
+     */
+    public DecodedJWT verifyToken(String token) {
+        String key = hash(token);
+        DecodedJWT cached = verifiedTokens.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            Algorithm algorithm = getAlgorithm();
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(ISSUER)
-                    .build();
+            DecodedJWT verified = VERIFIER.verify(token);
+            verifiedTokens.put(key, verified,
+                    verified.getExpiresAt() != null ? verified.getExpiresAt().getTime() : Long.MAX_VALUE);
+            return verified;
+        } catch (JWTVerificationException exception) {
+            return null;
+        }
+    }
 
-            DecodedJWT decodedJWT = verifier.verify(token);
-            String email = decodedJWT.getSubject();
+    /**
+     * Account token generation the token was issued under (0 for tokens issued before the claim existed)
+     */
+    public static long tokenGenerationOf(DecodedJWT token) {
+        Long generation = token.getClaim(TOKEN_GENERATION_CLAIM).asLong();
+        return generation != null ? generation : 0;
+    }
 
-            return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
-        } catch (JWTVerificationException exception) {
-            return false;
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        DecodedJWT verified = verifyToken(token);
+        return verified != null && userDetails.getUsername().equals(verified.getSubject());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-}
\ No newline at end of file
+}
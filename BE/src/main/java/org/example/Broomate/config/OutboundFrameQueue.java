@@ -0,0 +1,102 @@
+package org.example.Broomate.config;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded FIFO of frames waiting to be written to one WebSocket session.
+ *
+ * When full, the {@link OverflowPolicy} decides what gives way: the oldest frame,
+ * an older frame with the same coalesce key (so a slow client gets the latest
+ * notification of each type), or the session itself.
+ */
+public class OutboundFrameQueue {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        COALESCE,
+        DISCONNECT
+    }
+
+    /**
+     * A frame, its STOMP destination and the key frames are coalesced by under COALESCE
+     * (null for frames without one, e.g. heartbeats, which are never coalesced)
+     */
+    public record Frame(String destination, String coalesceKey, WebSocketMessage<?> message) {
+    }
+
+    /**
+     * @param accepted false if the policy is DISCONNECT and the queue was full
+     * @param dropped  frame removed to make room (or the rejected frame itself), or null
+     */
+    public record OfferResult(boolean accepted, Frame dropped) {
+    }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+    public OutboundFrameQueue(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    public synchronized OfferResult offer(Frame frame) {
+        if (frames.size() < capacity) {
+            frames.addLast(frame);
+            return new OfferResult(true, null);
+        }
+
+        if (policy == OverflowPolicy.DISCONNECT) {
+            return new OfferResult(false, frame);
+        }
+
+        Frame dropped = policy == OverflowPolicy.COALESCE ? removeOldestFor(frame.coalesceKey()) : null;
+        if (dropped == null) {
+            dropped = frames.pollFirst();
+        }
+        frames.addLast(frame);
+        return new OfferResult(true, dropped);
+    }
+
+    public synchronized Frame poll() {
+        return frames.pollFirst();
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    /**
+     * Remove everything, returning the frames that were queued, oldest first
+     */
+    public synchronized List<Frame> clear() {
+        List<Frame> cleared = new ArrayList<>(frames);
+        frames.clear();
+        return cleared;
+    }
+
+    private Frame removeOldestFor(String coalesceKey) {
+        if (coalesceKey == null) {
+            return null;
+        }
+
+        Iterator<Frame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            Frame queued = iterator.next();
+            if (Objects.equals(queued.coalesceKey(), coalesceKey)) {
+                iterator.remove();
+                return queued;
+            }
+        }
+        return null;
+    }
+}
@@ -1,4 +1,23 @@
 package org.example.Broomate.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis pub/sub for cross-node WebSocket delivery ({@code broomate.websocket.relay=redis}).
+ * Connection settings come from spring.data.redis.*
+ */
+@Configuration
+@ConditionalOnProperty(name = "broomate.websocket.relay", havingValue = "redis")
 public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
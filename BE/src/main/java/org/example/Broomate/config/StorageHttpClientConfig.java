@@ -0,0 +1,81 @@
+package org.example.Broomate.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Shared keep-alive HTTP client for Supabase Storage calls (FileStorageService).
+ *
+ * Connections are pooled up to {@code broomate.storage.http.max-per-route} per host, so
+ * uploads, signing and deletes reuse warm TLS connections instead of handshaking per
+ * call. Idle connections are evicted after {@code idle-eviction-seconds}. Pool state is
+ * published as broomate.storage.http.pool.* gauges.
+ */
+@Configuration
+public class StorageHttpClientConfig {
+
+    private static final String METRIC_PREFIX = "broomate.storage.http.pool";
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager storageConnectionManager(
+            @Value("${broomate.storage.http.max-total:40}") int maxTotal,
+            @Value("${broomate.storage.http.max-per-route:20}") int maxPerRoute,
+            @Value("${broomate.storage.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${broomate.storage.http.socket-timeout-ms:60000}") long socketTimeoutMs,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+
+        registerPoolGauge(meterRegistry, "leased", connectionManager, PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, "available", connectionManager, PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, "pending", connectionManager, PoolStats::getPending);
+        registerPoolGauge(meterRegistry, "max", connectionManager, PoolStats::getMax);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient storageHttpClient(
+            PoolingHttpClientConnectionManager storageConnectionManager,
+            @Value("${broomate.storage.http.connection-request-timeout-ms:10000}") long connectionRequestTimeoutMs,
+            @Value("${broomate.storage.http.socket-timeout-ms:60000}") long socketTimeoutMs,
+            @Value("${broomate.storage.http.idle-eviction-seconds:30}") long idleEvictionSeconds) {
+        return HttpClients.custom()
+                .setConnectionManager(storageConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
+    private static void registerPoolGauge(MeterRegistry meterRegistry, String name,
+                                          PoolingHttpClientConnectionManager connectionManager,
+                                          ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(METRIC_PREFIX + "." + name, connectionManager, cm -> value.applyAsDouble(cm.getTotalStats()))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.Broomate.config;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory record of users whose existing tokens must no longer be accepted.
+ *
+ * Revoking raises the account's token generation (stored on the account, and carried by
+ * every token as a claim); this registry remembers the new generation so tokens of an
+ * older one are rejected without reading the account. A token issued by the next login
+ * carries the new generation and is accepted, even within the same second.
+ * Entries are dropped once every token they could reject has expired anyway.
+ *
+ * The registry is per node and starts empty: with broomate.auth.claims-only=true, a
+ * revoked token stays valid on other nodes, and on this one after a restart, until it
+ * expires. With claims-only=false the generation is also checked against the account
+ * loaded for each request, which holds on every node.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    // userId -> lowest accepted token generation, and when it was raised
+    private final Map<String, Revocation> revocations = new ConcurrentHashMap<>();
+
+    /**
+     * Reject every token of the user issued under a generation below {@code minGeneration}
+     */
+    public void revokeTokensOf(String userId, long minGeneration) {
+        revocations.merge(userId, new Revocation(minGeneration, System.currentTimeMillis()),
+                (current, raised) -> raised.minGeneration() >= current.minGeneration() ? raised : current);
+        log.info("Revoked tokens below generation {} for user {}", minGeneration, userId);
+        pruneExpired();
+    }
+
+    public boolean isRevoked(String userId, DecodedJWT token) {
+        Revocation revocation = revocations.get(userId);
+        return revocation != null && JwtUtil.tokenGenerationOf(token) < revocation.minGeneration();
+    }
+
+    private void pruneExpired() {
+        // A token of an older generation was issued before its revocation, so has expired by now
+        long oldestLiveIssue = System.currentTimeMillis() - JwtUtil.EXPIRATION_TIME;
+        revocations.values().removeIf(revocation -> revocation.revokedAt() < oldestLiveIssue);
+    }
+
+    private record Revocation(long minGeneration, long revokedAt) {
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.Broomate.config;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -15,6 +17,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import java.util.List;
 
@@ -24,10 +27,21 @@ import java.util.List;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtUtil jwtUtil;
+    private final WebSocketOutboundQueues outboundQueues;
+    private final TokenRevocationRegistry revocationRegistry;
+
+    @Value("${broomate.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${broomate.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
 
     // ✅ Add explicit constructor with logging
-    public WebSocketConfig(JwtUtil jwtUtil) {
+    public WebSocketConfig(JwtUtil jwtUtil, WebSocketOutboundQueues outboundQueues,
+                           TokenRevocationRegistry revocationRegistry) {
         this.jwtUtil = jwtUtil;
+        this.outboundQueues = outboundQueues;
+        this.revocationRegistry = revocationRegistry;
         log.info("🔧 WebSocketConfig initialized with JwtUtil: {}", jwtUtil != null ? "✅ SUCCESS" : "❌ NULL");
     }
 
@@ -39,6 +53,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Frames are queued per session (bounded) by the outbound queues; Spring's own
+        // per-session buffer and time limit stay as a backstop for the sender threads
+        registration.setSendTimeLimit((int) outboundQueues.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(outboundQueues::decorate);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         log.info("🔧 Registering STOMP endpoints...");
@@ -69,9 +93,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         log.info("🎫 Extracted token (first 20 chars): {}...", token.substring(0, Math.min(20, token.length())));
                         
                         try {
-                            // ✅ Extract userId from JWT
-                            String userId = jwtUtil.extractUserId(token);
-                            String role = jwtUtil.extractRole(token);
+                            // ✅ Extract userId from the verified JWT
+                            DecodedJWT verified = jwtUtil.verifyToken(token);
+                            if (verified != null && revocationRegistry.isRevoked(
+                                    verified.getClaim("userId").asString(), verified)) {
+                                log.warn("⚠️ Revoked JWT token in WebSocket CONNECT");
+                                verified = null;
+                            }
+                            String userId = verified != null ? verified.getClaim("userId").asString() : null;
+                            String role = verified != null ? verified.getClaim("role").asString() : null;
                             
                             log.info("👤 Extracted from token - userId: {}, role: {}", userId, role);
                             
@@ -89,7 +119,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                 log.info("✅ WebSocket authenticated for user: {} with role: {}", userId, role);
                                 log.info("🎯 Authentication principal name: {}", authentication.getName());
                             } else {
-                                log.warn("⚠️ No userId found in JWT token");
+                                log.warn("⚠️ Invalid JWT token or no userId in it");
                             }
                         } catch (Exception e) {
                             log.error("❌ Failed to authenticate WebSocket: {}", e.getMessage(), e);
@@ -1,25 +1,45 @@
 package org.example.Broomate.config;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.service.WebSocketService;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class WebSocketEventListener {
 
+    private static final String INBOX_DESTINATION = "/user/queue/inbox";
+
+    private final WebSocketService webSocketService;
+
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         log.info("New WebSocket connection - Session ID: {}", headerAccessor.getSessionId());
     }
 
+    /**
+     * Replay offline notifications once the client listens on its inbox
+     * (a push on connect would arrive before any subscription exists)
+     */
+    @EventListener
+    public void handleWebSocketSubscribeListener(SessionSubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (event.getUser() != null && INBOX_DESTINATION.equals(headerAccessor.getDestination())) {
+            webSocketService.replayInbox(event.getUser().getName(), headerAccessor.getSessionId());
+        }
+    }
+
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         log.info("WebSocket disconnected - Session ID: {}", headerAccessor.getSessionId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,403 @@
+package org.example.Broomate.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.repository.NotificationInboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-session bounded outbound queues for STOMP sessions.
+ *
+ * Installed as a handler decorator ({@link WebSocketConfig#configureWebSocketTransport}),
+ * it gives every session a {@link OutboundFrameQueue} of
+ * {@code broomate.websocket.outbound.queue-capacity} frames. Broker threads only enqueue;
+ * a small sender pool writes each session's frames in order, so a stalled client
+ * fills its own queue (and hits the overflow policy) instead of holding broker
+ * threads or growing buffers. A watchdog closes any session whose write has been
+ * blocked for longer than {@code broomate.websocket.send-time-limit-ms}, which also
+ * frees the sender thread stuck on it, so a few stalled clients cannot starve the pool.
+ *
+ * Under COALESCE, frames are coalesced by destination and notification type. User
+ * notifications that never reach the client (dropped on overflow, or still queued when
+ * the session closes) are stored in the user's offline inbox, to be replayed on reconnect.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebSocketOutboundQueues {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+    private static final String USER_DESTINATION_PREFIX = "/user";
+    private static final String INBOX_DESTINATION = "/user/queue/inbox";
+
+    private final MeterRegistry meterRegistry;
+    private final NotificationInboxRepository inboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${broomate.websocket.outbound.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${broomate.websocket.outbound.overflow-policy:DROP_OLDEST}")
+    private OutboundFrameQueue.OverflowPolicy overflowPolicy;
+
+    @Value("${broomate.websocket.outbound.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${broomate.websocket.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    private ExecutorService senders;
+
+    // Scans for blocked writes; closing runs on its own pool, since a close can itself wait on the stuck write
+    private ScheduledExecutorService watchdog;
+    private ExecutorService closers;
+    private final Set<QueueingSession> liveSessions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private Counter disconnectCounter;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(Math.max(senderThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "ws-outbound-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger closerCount = new AtomicInteger();
+        closers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ws-outbound-closer-" + closerCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-outbound-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long scanIntervalMs = Math.max(Math.min(sendTimeLimitMs / 4, 1000), 100);
+        watchdog.scheduleWithFixedDelay(this::closeBlockedSessions, scanIntervalMs, scanIntervalMs, TimeUnit.MILLISECONDS);
+
+        meterRegistry.gauge("broomate.websocket.outbound.queued", queuedFrames);
+        meterRegistry.gauge("broomate.websocket.outbound.sessions", openSessions);
+        disconnectCounter = meterRegistry.counter("broomate.websocket.outbound.disconnects");
+
+        log.info("WebSocket outbound queues: {} frames per session, overflow policy {}, {} sender threads",
+                queueCapacity, overflowPolicy, senderThreads);
+    }
+
+    public long getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    /**
+     * Wrap the STOMP handler so every session it sees writes through a bounded queue
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new QueueingHandler(handler);
+    }
+
+    /**
+     * Close every session whose current write has been blocked past the send time limit
+     */
+    private void closeBlockedSessions() {
+        long now = System.currentTimeMillis();
+        for (QueueingSession session : liveSessions) {
+            if (session.isBlockedSince(now - sendTimeLimitMs)) {
+                closers.execute(() -> session.disconnect("send blocked for more than " + sendTimeLimitMs + " ms"));
+            }
+        }
+    }
+
+    private void recordDropped(OutboundFrameQueue.Frame frame) {
+        String destination = frame.destination() != null ? frame.destination() : "none";
+        meterRegistry.counter("broomate.websocket.outbound.dropped",
+                "destination", destination, "policy", overflowPolicy.name()).increment();
+    }
+
+    /**
+     * Keep an undelivered user notification in the user's inbox, so it is replayed on reconnect
+     */
+    private void storeUndelivered(Principal user, OutboundFrameQueue.Frame frame) {
+        String destination = frame.destination();
+        if (user == null || destination == null || !destination.startsWith(USER_DESTINATION_PREFIX + "/")
+                || destination.equals(INBOX_DESTINATION)) {
+            // Broadcasts and heartbeats are not kept; a replay stays in the inbox until acknowledged
+            return;
+        }
+
+        String body = bodyOf(frame.message());
+        if (body == null) {
+            return;
+        }
+
+        try {
+            Map<String, Object> payload = objectMapper.readValue(body, PAYLOAD_TYPE);
+            inboxRepository.append(user.getName(), destination.substring(USER_DESTINATION_PREFIX.length()), payload);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not store undelivered notification for user {} ({}): {}",
+                    user.getName(), destination, e.getMessage());
+        }
+    }
+
+    /**
+     * Key frames are coalesced by: destination and the notification's "type", or the
+     * destination alone for payloads without one
+     */
+    static String coalesceKeyOf(String destination, WebSocketMessage<?> message) {
+        if (destination == null) {
+            return null;
+        }
+
+        String body = bodyOf(message);
+        int start = body == null ? -1 : body.indexOf("\"type\":\"");
+        if (start < 0) {
+            return destination;
+        }
+
+        start += "\"type\":\"".length();
+        int end = body.indexOf('"', start);
+        return end < 0 ? destination : destination + "|" + body.substring(start, end);
+    }
+
+    /**
+     * Body of an outgoing STOMP frame, without its headers and trailing NUL
+     */
+    private static String bodyOf(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+
+        String payload = text.getPayload();
+        int headersEnd = payload.indexOf("\n\n");
+        if (headersEnd < 0) {
+            return null;
+        }
+
+        int end = payload.endsWith("\0") ? payload.length() - 1 : payload.length();
+        return headersEnd + 2 < end ? payload.substring(headersEnd + 2, end) : null;
+    }
+
+    /**
+     * STOMP destination header of an outgoing frame, read without decoding the frame
+     */
+    static String destinationOf(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+
+        String payload = text.getPayload();
+        int headersEnd = payload.indexOf("\n\n");
+        int start = payload.indexOf("\ndestination:");
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+
+        start += "\ndestination:".length();
+        int end = payload.indexOf('\n', start);
+        return payload.substring(start, end < 0 ? payload.length() : end);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+        closers.shutdown();
+        senders.shutdown();
+        try {
+            senders.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========================================
+    // DECORATORS
+    // ========================================
+
+    private class QueueingHandler extends WebSocketHandlerDecorator {
+
+        private final Map<String, QueueingSession> sessions = new ConcurrentHashMap<>();
+
+        QueueingHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            QueueingSession queueing = new QueueingSession(session);
+            sessions.put(session.getId(), queueing);
+            liveSessions.add(queueing);
+            openSessions.incrementAndGet();
+            super.afterConnectionEstablished(queueing);
+        }
+
+        @Override
+        public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+            QueueingSession queueing = sessions.get(session.getId());
+            super.handleMessage(queueing != null ? queueing : session, message);
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+            QueueingSession queueing = sessions.get(session.getId());
+            super.handleTransportError(queueing != null ? queueing : session, exception);
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            QueueingSession queueing = sessions.remove(session.getId());
+            if (queueing != null) {
+                liveSessions.remove(queueing);
+                openSessions.decrementAndGet();
+                queueing.discard();
+            }
+            super.afterConnectionClosed(queueing != null ? queueing : session, closeStatus);
+        }
+    }
+
+    private class QueueingSession extends WebSocketSessionDecorator {
+
+        private final OutboundFrameQueue queue = new OutboundFrameQueue(queueCapacity, overflowPolicy);
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        private volatile boolean closed;
+
+        QueueingSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        /**
+         * Queue the frame and return; the sender pool writes it
+         */
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (closed) {
+                return;
+            }
+
+            if (isBlockedSince(System.currentTimeMillis() - sendTimeLimitMs)) {
+                disconnect("send blocked for more than " + sendTimeLimitMs + " ms");
+                return;
+            }
+
+            String destination = destinationOf(message);
+            String coalesceKey = overflowPolicy == OutboundFrameQueue.OverflowPolicy.COALESCE
+                    ? coalesceKeyOf(destination, message) : null;
+            OutboundFrameQueue.OfferResult offer = queue.offer(
+                    new OutboundFrameQueue.Frame(destination, coalesceKey, message));
+            if (!offer.accepted()) {
+                recordDropped(offer.dropped());
+                storeUndelivered(getPrincipal(), offer.dropped());
+                disconnect("outbound queue full");
+                return;
+            }
+
+            if (offer.dropped() != null) {
+                recordDropped(offer.dropped());
+                storeUndelivered(getPrincipal(), offer.dropped());
+            } else {
+                queuedFrames.incrementAndGet();
+            }
+            scheduleFlush();
+        }
+
+        /**
+         * True if a write started before the given time and has not returned
+         */
+        boolean isBlockedSince(long time) {
+            long blockedSince = sendStartedAt;
+            return !closed && blockedSince > 0 && blockedSince < time;
+        }
+
+        private void scheduleFlush() {
+            if (flushScheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::flush);
+                } catch (RejectedExecutionException e) {
+                    flushScheduled.set(false);
+                }
+            }
+        }
+
+        private void flush() {
+            try {
+                OutboundFrameQueue.Frame frame;
+                while (!closed && (frame = queue.poll()) != null) {
+                    queuedFrames.decrementAndGet();
+                    sendStartedAt = System.currentTimeMillis();
+                    try {
+                        getDelegate().sendMessage(frame.message());
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to write to WebSocket session {}: {}", getId(), e.getMessage());
+                disconnect("write failed");
+            } finally {
+                flushScheduled.set(false);
+            }
+
+            // A frame may have arrived after the last poll but before the flag was cleared
+            if (!closed && queue.size() > 0) {
+                scheduleFlush();
+            }
+        }
+
+        private void disconnect(String reason) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            disconnectCounter.increment();
+            log.warn("Closing slow WebSocket session {}: {}", getId(), reason);
+            discard();
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Error closing WebSocket session {}", getId(), e);
+            }
+        }
+
+        void discard() {
+            closed = true;
+            List<OutboundFrameQueue.Frame> undelivered = queue.clear();
+            queuedFrames.addAndGet(-undelivered.size());
+            Principal user = getPrincipal();
+            undelivered.forEach(frame -> storeUndelivered(user, frame));
+        }
+    }
+}
@@ -12,6 +12,7 @@ import jakarta.validation.Valid;
 
 import org.example.Broomate.config.CustomUserDetails;
 import org.example.Broomate.dto.request.allAuthUser.ChangePasswordRequest;
+import org.example.Broomate.dto.request.allAuthUser.MarkAsReadRequest;
 import org.example.Broomate.dto.request.allAuthUser.SendMessageRequest;
 import org.example.Broomate.dto.response.*;
 import org.example.Broomate.dto.response.allAuthUser.*;
@@ -160,6 +161,32 @@ public class AllAuthUserController {
         MessageDetailResponse response = allAuthUserService.sendMessage(userId, conversationId, request, media);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+    /**
+     * 5.5. MARK CONVERSATION AS READ
+     */
+    @Operation(summary = "Mark conversation as read",
+            description = "Reset the caller's unread count for a conversation, or pass message IDs to mark only those messages as read")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conversation marked as read",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HTTPMessageResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Not a conversation participant",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Conversation not found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/conversations/{conversationId}/read")
+    public ResponseEntity<HTTPMessageResponse> markConversationAsRead(
+            @PathVariable String conversationId,
+            @RequestBody(required = false) MarkAsReadRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        String userId = userDetails.getUserId();
+        HTTPMessageResponse response = allAuthUserService.markConversationAsRead(conversationId, userId, request);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 6. DEACTIVATE PROFILE
      */
@@ -211,11 +238,15 @@ public class AllAuthUserController {
      * 1.5. GET CONVERSATION DETAIL WITH MESSAGES
      */
     @Operation(summary = "Get conversation detail with messages",
-            description = "Retrieve detailed information about a specific conversation including all messages")
+            description = "Retrieve detailed information about a specific conversation with one page of messages. "
+                    + "Returns the newest page by default; pass olderCursor as 'before' or newerCursor as 'after' to page")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Conversation details retrieved successfully",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ConversationDetailResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, or both 'before' and 'after' given",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "403", description = "Not a conversation participant",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class))),
@@ -226,9 +257,16 @@ public class AllAuthUserController {
     @GetMapping("/conversations/{conversationId}")
     public ResponseEntity<ConversationDetailResponse> getConversationDetail(
             @PathVariable String conversationId,
+            @Parameter(description = "Cursor to load messages older than a previous page")
+            @RequestParam(required = false) String before,
+            @Parameter(description = "Cursor to load messages newer than a previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size (default 50, max 200)")
+            @RequestParam(required = false) Integer limit,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         String userId = userDetails.getUserId();
-        ConversationDetailResponse response = allAuthUserService.getConversationDetail(conversationId, userId);
+        ConversationDetailResponse response = allAuthUserService.getConversationDetail(
+                conversationId, userId, before, after, limit);
         return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
@@ -41,13 +41,18 @@ public class TenantController {
     /**
      * GET ALL TENANTS FOR SWIPING
      */
-    @Operation(summary = "Get all tenants for swiping",
-            description = "Retrieve all tenant profiles for swiping/matching. " +
-                    "Excludes already rejected (within 10 min), matched, and already swiped tenants.")
+    @Operation(summary = "Get tenants for swiping",
+            description = "Retrieve a page of tenant profiles for swiping/matching. " +
+                    "Excludes matched and already swiped tenants. " +
+                    "Profiles are ordered by compatibility with the current tenant (best first). " +
+                    "Pass the returned nextCursor to get the next page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved tenant profiles",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = TenantListResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class))),
@@ -57,9 +62,15 @@ public class TenantController {
     })
     @GetMapping("/profiles")
     public ResponseEntity<TenantListResponse> getAllTenants(
+            @Parameter(description = "Page size (max 50)", example = "10")
+            @RequestParam(required = false) Integer limit,
+
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         String currentTenantId = userDetails.getUserId();
-        TenantListResponse response = tenantService.getAllTenantsForSwiping(currentTenantId);
+        TenantListResponse response = tenantService.getAllTenantsForSwiping(currentTenantId, limit, cursor);
         return ResponseEntity.ok(response);
     }
 
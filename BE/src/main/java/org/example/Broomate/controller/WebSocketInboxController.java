@@ -0,0 +1,35 @@
+package org.example.Broomate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.dto.websocket.InboxAckRequest;
+import org.example.Broomate.service.WebSocketService;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * STOMP endpoints for the offline notification inbox
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class WebSocketInboxController {
+
+    private final WebSocketService webSocketService;
+
+    /**
+     * Acknowledge an INBOX_REPLAY frame so its notifications are removed from the inbox
+     */
+    @MessageMapping("/inbox/ack")
+    public void acknowledgeInbox(@Payload InboxAckRequest request, Principal principal) {
+        if (principal == null || request == null || request.getAckCursor() == null) {
+            log.warn("⚠️ Ignoring inbox ack without user or cursor");
+            return;
+        }
+
+        webSocketService.acknowledgeInbox(principal.getName(), request.getAckCursor());
+    }
+}
@@ -40,12 +40,24 @@ public class ConversationDetailResponse {
     @Schema(description = "Unread message count", example = "3")
     private Integer unreadCount;
 
-    @Schema(description = "List of messages in this conversation")
+    @Schema(description = "One page of messages in this conversation, oldest first")
     private List<MessageDetailResponse> messages;
 
-    @Schema(description = "Total message count", example = "15")
+    @Schema(description = "Number of messages in this page", example = "15")
     private Integer totalMessages;
 
+    @Schema(description = "Pass as 'before' to load older messages (null when there are none)")
+    private String olderCursor;
+
+    @Schema(description = "Pass as 'after' to load messages newer than this page (null when the page is empty)")
+    private String newerCursor;
+
+    @Schema(description = "Whether older messages exist", example = "true")
+    private Boolean hasOlder;
+
+    @Schema(description = "Whether newer messages exist (as of this request)", example = "false")
+    private Boolean hasNewer;
+
     @Schema(description = "Created timestamp", example = "2025-10-20T10:00:00Z")
     private String createdAt;
 
@@ -91,7 +103,7 @@ public class ConversationDetailResponse {
                 .lastMessage(conversation.getLastMessage())
                 .lastMessageAt(conversation.getLastMessageAt() != null ?
                         conversation.getLastMessageAt().toString() : null)
-                .unreadCount(0)
+                .unreadCount(conversation.unreadCountFor(currentUserId))
                 .createdAt(conversation.getCreatedAt() != null ?
                         conversation.getCreatedAt().toString() : null)
                 .updatedAt(conversation.getUpdatedAt() != null ?
@@ -137,7 +149,7 @@ public class ConversationDetailResponse {
                 .lastMessage(conversation.getLastMessage())
                 .lastMessageAt(conversation.getLastMessageAt() != null ?
                         conversation.getLastMessageAt().toString() : null)
-                .unreadCount(0)
+                .unreadCount(conversation.unreadCountFor(currentUserId))
                 .messages(messages)
                 .totalMessages(messages != null ? messages.size() : 0)
                 .allParticipants(allParticipants) // ✅ POPULATED
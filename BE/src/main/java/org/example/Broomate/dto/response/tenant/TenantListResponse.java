@@ -17,9 +17,15 @@ public class TenantListResponse {
     @Schema(description = "List of tenants")
     private List<TenantProfileResponse> tenants;
     
-    @Schema(description = "Total number of tenants", example = "50")
+    @Schema(description = "Number of tenants in this page", example = "20")
     private int totalCount;
 
+    @Schema(description = "Cursor for the next page (null when there are no more profiles)", example = "ZGVjazEKdGVuYW50MTIz")
+    private String nextCursor;
+
+    @Schema(description = "Whether more profiles are available after this page", example = "true")
+    private boolean hasMore;
+
     @Schema (description = "Message")
     private String message;
     
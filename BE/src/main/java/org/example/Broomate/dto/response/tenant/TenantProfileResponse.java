@@ -55,6 +55,9 @@ public class TenantProfileResponse {
     @Schema(description = "Whether the profile is active", example = "true")
     private Boolean isActive;
 
+    @Schema(description = "Compatibility with the requesting tenant (0-100), only set in the swipe deck", example = "82")
+    private Integer compatibilityScore;
+
     /**
      * Convert Tenant model to TenantProfileResponse DTO
      */
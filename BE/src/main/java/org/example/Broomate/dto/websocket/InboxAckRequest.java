@@ -0,0 +1,15 @@
+package org.example.Broomate.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Client confirmation of an inbox replay, sent to /app/inbox/ack
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxAckRequest {
+    private String ackCursor; // from InboxReplayNotification.ackCursor
+}
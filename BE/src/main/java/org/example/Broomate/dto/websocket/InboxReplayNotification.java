@@ -0,0 +1,31 @@
+package org.example.Broomate.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class InboxReplayNotification extends WebSocketMessage {
+    private List<ReplayedNotification> notifications; // oldest first
+    private String ackCursor; // send back to /app/inbox/ack once processed; until then the inbox keeps them
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReplayedNotification {
+        private String destination; // queue it was meant for, e.g. "/queue/messages"
+        private Map<String, Object> payload;
+        private String createdAt;
+    }
+}
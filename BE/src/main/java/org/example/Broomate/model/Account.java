@@ -21,6 +21,7 @@ public class    Account extends BaseModel {
     private AccountRoleEnum role;  // TENANT or LANDLORD
     @Builder.Default
     private boolean active = true;
+    private long tokenGeneration;  // Raised to revoke every token issued before
 
     public enum AccountRoleEnum {
         TENANT,
@@ -0,0 +1,30 @@
+package org.example.Broomate.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable public profile summary of an account (tenant or landlord), used where
+ * only display data is needed: message senders, conversation participants and
+ * notifications. Safe to share from a cache.
+ */
+@Value
+@Builder
+public class AccountSummary {
+
+    String id;
+    String name;
+    String avatarUrl;
+    Account.AccountRoleEnum role;
+    boolean active;
+
+    public static AccountSummary fromAccount(Account account) {
+        return AccountSummary.builder()
+                .id(account.getId())
+                .name(account.getName())
+                .avatarUrl(account.getAvatarUrl())
+                .role(account.getRole())
+                .active(account.isActive())
+                .build();
+    }
+}
@@ -7,7 +7,13 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @SuperBuilder
@@ -19,7 +25,30 @@ public class Conversation extends BaseModel {
     private List<String> participantIds;  // [tenant1Id, tenant2Id] or [tenant1Id, tenant2Id, landlordId]
     private String lastMessage;
     private Timestamp lastMessageAt;
+    private String participantKey;        // participantKeyOf(participantIds), indexed for exact-participant lookups
+    private Map<String, Long> unreadCounts; // userId -> messages not yet read; changed only via atomic field updates
 
     // Note: type and relatedRoomId are optional fields for future use
     // Not in original spec but useful for distinguishing conversation types
+
+    /**
+     * Unread message count of a participant (0 if none recorded)
+     */
+    public int unreadCountFor(String userId) {
+        Long count = unreadCounts != null ? unreadCounts.get(userId) : null;
+        return count != null ? (int) Math.max(0, count) : 0;
+    }
+
+    /**
+     * Canonical, order-independent key of a participant set: SHA-256 (hex) of the sorted, distinct IDs
+     */
+    public static String participantKeyOf(Collection<String> participantIds) {
+        String canonical = String.join("\n", participantIds.stream().distinct().sorted().toList());
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
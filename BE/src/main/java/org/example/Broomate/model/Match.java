@@ -6,6 +6,8 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+import java.util.List;
+
 @Data
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder
@@ -17,6 +19,19 @@ public class Match extends BaseModel {
     private String conversationId;
     private MatchStatusEnum status;
 
+    // Normalized pair lookups (set by TenantRepository.saveMatch)
+    private String pairKey;           // pairKeyOf(tenant1Id, tenant2Id)
+    private List<String> tenantIds;   // [tenant1Id, tenant2Id], for array-contains queries
+
+    /**
+     * Order-independent key of a tenant pair
+     */
+    public static String pairKeyOf(String tenantAId, String tenantBId) {
+        return tenantAId.compareTo(tenantBId) <= 0
+                ? tenantAId + "_" + tenantBId
+                : tenantBId + "_" + tenantAId;
+    }
+
     public enum MatchStatusEnum {
         ACTIVE,
         INACTIVE,
@@ -0,0 +1,38 @@
+package org.example.Broomate.model;
+
+import com.google.cloud.Timestamp;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebSocket notifications a user missed while offline, one document per user
+ * (notificationInbox/{userId}), oldest first
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationInbox {
+
+    @Builder.Default
+    private List<Item> items = new ArrayList<>();
+    private Timestamp expiresAt;  // last append + TTL; can back a Firestore TTL policy
+    private long lastSeq;         // sequence of the last appended item; kept when items are acknowledged
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String destination;          // user queue, e.g. "/queue/messages"
+        private Map<String, Object> payload; // the notification as it would have been sent
+        private Timestamp createdAt;
+        private long seq;                    // assigned in the append transaction; 0 for items stored before
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.Broomate.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.Account;
+import org.example.Broomate.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Directory of account ID -> role, so account lookups go straight to the right
+ * collection ("tenants" or "landlords") with a single read.
+ *
+ * Persisted in the accountRoles collection (written in the same batch as the
+ * account at signup) and read per ID on demand through a bounded TTL + LRU cache;
+ * roles never change, so entries only leave the cache by size or TTL. IDs missing
+ * from the directory are resolved by the repositories by probing both collections
+ * concurrently and then {@link #record recorded} here.
+ */
+@Slf4j
+@Component
+public class AccountRoleDirectory {
+
+    static final String ACCOUNT_ROLES_COLLECTION = "accountRoles";
+    private static final String TENANTS_COLLECTION = "tenants";
+    private static final String LANDLORDS_COLLECTION = "landlords";
+    private static final String METRIC_PREFIX = "broomate.cache.account_roles";
+
+    private final Firestore firestore;
+    private final BoundedTtlCache<String, Account.AccountRoleEnum> cache;
+
+    public AccountRoleDirectory(Firestore firestore,
+                                @Value("${broomate.cache.account-roles.max-size:50000}") int maxSize,
+                                @Value("${broomate.cache.account-roles.ttl-seconds:3600}") long ttlSeconds,
+                                MeterRegistry meterRegistry) {
+        this.firestore = firestore;
+        this.cache = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+
+        Gauge.builder(METRIC_PREFIX + ".size", cache, BoundedTtlCache::size).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", cache, c -> c.stats().hits()).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", cache, c -> c.stats().misses()).register(meterRegistry);
+    }
+
+    /**
+     * Collection that stores accounts of a role
+     */
+    public static String collectionFor(Account.AccountRoleEnum role) {
+        return role == Account.AccountRoleEnum.LANDLORD ? LANDLORDS_COLLECTION : TENANTS_COLLECTION;
+    }
+
+    /**
+     * Known role of an account, or null if the ID is not in the directory
+     */
+    public Account.AccountRoleEnum lookup(String accountId) {
+        return lookupAll(List.of(accountId)).get(accountId);
+    }
+
+    /**
+     * Known roles of many accounts, with one batched read for the IDs not cached;
+     * IDs not in the directory are absent
+     */
+    public Map<String, Account.AccountRoleEnum> lookupAll(Collection<String> accountIds) {
+        Map<String, Account.AccountRoleEnum> roles = new HashMap<>();
+        List<DocumentReference> missing = new ArrayList<>();
+        for (String accountId : new LinkedHashSet<>(accountIds)) {
+            Account.AccountRoleEnum cached = cache.get(accountId);
+            if (cached != null) {
+                roles.put(accountId, cached);
+            } else {
+                missing.add(roleDocument(accountId));
+            }
+        }
+        if (missing.isEmpty()) {
+            return roles;
+        }
+
+        try {
+            for (DocumentSnapshot doc : firestore.getAll(missing.toArray(new DocumentReference[0])).get()) {
+                String role = doc.exists() ? doc.getString("role") : null;
+                if (role != null) {
+                    Account.AccountRoleEnum accountRole = Account.AccountRoleEnum.valueOf(role);
+                    cache.put(doc.getId(), accountRole);
+                    roles.put(doc.getId(), accountRole);
+                }
+            }
+            return roles;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error looking up account roles of {} accounts", missing.size(), e);
+            throw new RuntimeException("Failed to look up account roles", e);
+        }
+    }
+
+    /**
+     * Add the role document to a batch that also writes the account itself;
+     * call {@link #remember} once the batch has committed
+     */
+    public void addToBatch(WriteBatch batch, String accountId, Account.AccountRoleEnum role) {
+        batch.set(roleDocument(accountId), Map.of("role", role.name()));
+    }
+
+    /**
+     * Update the cache only (the role document is already written)
+     */
+    public void remember(String accountId, Account.AccountRoleEnum role) {
+        if (accountId != null && role != null) {
+            cache.put(accountId, role);
+        }
+    }
+
+    /**
+     * Remember a role discovered by probing, and persist it in the background
+     */
+    public void record(String accountId, Account.AccountRoleEnum role) {
+        if (accountId == null || role == null) {
+            return;
+        }
+
+        remember(accountId, role);
+        ApiFuture<WriteResult> write = roleDocument(accountId).set(Map.of("role", role.name()));
+        ApiFutures.addCallback(write, new ApiFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("Error persisting role of account {}", accountId, t);
+            }
+
+            @Override
+            public void onSuccess(WriteResult result) {
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private DocumentReference roleDocument(String accountId) {
+        return firestore.collection(ACCOUNT_ROLES_COLLECTION).document(accountId);
+    }
+}
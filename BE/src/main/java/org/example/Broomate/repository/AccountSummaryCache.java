@@ -0,0 +1,80 @@
+package org.example.Broomate.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.Broomate.model.AccountSummary;
+import org.example.Broomate.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded TTL + LRU cache of account summaries, keyed by account ID.
+ *
+ * Filled by the summary read methods of AllAuthUserRepository and invalidated
+ * synchronously by every account write (AllAuthUserRepository.updateAccount,
+ * TenantRepository.update, LandlordRepository.update). A load notes the
+ * {@link #beginLoad sequence} before reading the account, and its summary is not
+ * cached if the account was invalidated meanwhile, so a read that raced a write
+ * cannot put the old profile back. Statistics are published as
+ * broomate.cache.account_summary.* metrics.
+ */
+@Component
+public class AccountSummaryCache {
+
+    private static final String METRIC_PREFIX = "broomate.cache.account_summary";
+
+    private static final long INVALIDATION_MEMORY_MS = 60_000;
+
+    private final BoundedTtlCache<String, AccountSummary> cache;
+
+    // Invalidation sequence, and the sequence of each account's recent invalidations
+    private final AtomicLong sequence = new AtomicLong();
+    private final BoundedTtlCache<String, Long> invalidatedAt;
+
+    public AccountSummaryCache(@Value("${broomate.cache.account-summary.max-size:10000}") int maxSize,
+                               @Value("${broomate.cache.account-summary.ttl-seconds:300}") long ttlSeconds,
+                               MeterRegistry meterRegistry) {
+        this.cache = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+        this.invalidatedAt = new BoundedTtlCache<>(maxSize, INVALIDATION_MEMORY_MS);
+
+        Gauge.builder(METRIC_PREFIX + ".size", cache, BoundedTtlCache::size).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", cache, c -> c.stats().hits()).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", cache, c -> c.stats().misses()).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".evictions", cache, c -> c.stats().evictions()).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".expirations", cache, c -> c.stats().expirations()).register(meterRegistry);
+    }
+
+    public AccountSummary get(String accountId) {
+        return cache.get(accountId);
+    }
+
+    /**
+     * Call before reading the account a summary is built from; pass the result to {@link #put}
+     */
+    public long beginLoad() {
+        return sequence.get();
+    }
+
+    /**
+     * Cache a summary loaded after {@link #beginLoad}, unless its account was invalidated since
+     */
+    public synchronized void put(AccountSummary summary, long loadSequence) {
+        Long invalidated = invalidatedAt.get(summary.getId());
+        if (invalidated != null && invalidated > loadSequence) {
+            return;
+        }
+        cache.put(summary.getId(), summary);
+    }
+
+    public synchronized void invalidate(String accountId) {
+        invalidatedAt.put(accountId, sequence.incrementAndGet());
+        cache.invalidate(accountId);
+    }
+
+    public BoundedTtlCache.Stats stats() {
+        return cache.stats();
+    }
+}
@@ -1,20 +1,30 @@
 package org.example.Broomate.repository;
 
+import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.firebase.cloud.FirestoreClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.Broomate.model.Account;
+import org.example.Broomate.model.AccountSummary;
 import org.example.Broomate.model.Conversation;
 import org.example.Broomate.model.Message;
 import org.example.Broomate.model.Room;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 @RequiredArgsConstructor
@@ -26,7 +36,11 @@ public class AllAuthUserRepository {
     private static final String CONVERSATIONS_COLLECTION = "conversations";
     private static final String MESSAGES_COLLECTION = "messages";
     private static final String ROOMS_COLLECTION = "rooms";
+    private static final String UNREAD_COUNTS_FIELD = "unreadCounts";
     private final Firestore firestore;
+    private final TenantCandidateIndex candidateIndex;
+    private final AccountSummaryCache accountSummaryCache;
+    private final AccountRoleDirectory roleDirectory;
 
 
     // ========================================
@@ -80,24 +94,91 @@ public class AllAuthUserRepository {
     }
 
     /**
-     * Update conversation
+     * Apply a conversation summary update in one atomic write: last message preview,
+     * and unread counts either set to a value or incremented (without reading them)
      */
-    public Conversation updateConversation(String conversationId, Conversation conversation) {
+    public void updateConversationSummary(String conversationId, String lastMessage, Timestamp lastMessageAt,
+                                          Map<String, Long> unreadValues, Map<String, Long> unreadIncrements) {
         try {
-            conversation.setUpdatedAt(Timestamp.now());
+            List<Object> moreFieldsAndValues = new ArrayList<>(List.of(
+                    FieldPath.of("lastMessageAt"), lastMessageAt,
+                    FieldPath.of("updatedAt"), Timestamp.now()));
+            unreadValues.forEach((userId, value) -> {
+                moreFieldsAndValues.add(FieldPath.of(UNREAD_COUNTS_FIELD, userId));
+                moreFieldsAndValues.add(value);
+            });
+            unreadIncrements.forEach((userId, delta) -> {
+                moreFieldsAndValues.add(FieldPath.of(UNREAD_COUNTS_FIELD, userId));
+                moreFieldsAndValues.add(FieldValue.increment(delta));
+            });
 
             firestore.collection(CONVERSATIONS_COLLECTION)
                     .document(conversationId)
-                    .set(conversation)
+                    .update(FieldPath.of("lastMessage"), lastMessage, moreFieldsAndValues.toArray())
                     .get();
-
-            return conversation;
         } catch (InterruptedException | ExecutionException e) {
-            log.error("Error updating conversation: {}", conversationId, e);
+            log.error("Error updating summary of conversation: {}", conversationId, e);
             throw new RuntimeException("Failed to update conversation", e);
         }
     }
 
+    /**
+     * Reset a participant's unread count to zero
+     */
+    public void resetUnreadCount(String conversationId, String userId) {
+        try {
+            firestore.collection(CONVERSATIONS_COLLECTION)
+                    .document(conversationId)
+                    .update(FieldPath.of(UNREAD_COUNTS_FIELD, userId), 0)
+                    .get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error resetting unread count of {} in conversation: {}", userId, conversationId, e);
+            throw new RuntimeException("Failed to mark conversation as read", e);
+        }
+    }
+
+    /**
+     * Mark specific messages as read by a participant and decrement their unread count by the
+     * number of those messages that were still unread (in one transaction, never below zero)
+     *
+     * @return the participant's remaining unread count
+     */
+    public int markMessagesRead(String conversationId, String userId, Collection<String> messageIds) {
+        DocumentReference conversationRef = firestore.collection(CONVERSATIONS_COLLECTION).document(conversationId);
+        DocumentReference[] messageRefs = messageIds.stream()
+                .distinct()
+                .map(messageId -> firestore.collection(MESSAGES_COLLECTION).document(messageId))
+                .toArray(DocumentReference[]::new);
+
+        try {
+            return firestore.runTransaction(transaction -> {
+                DocumentSnapshot conversationDoc = transaction.get(conversationRef).get();
+                List<DocumentSnapshot> messageDocs = transaction.getAll(messageRefs).get();
+
+                int newlyRead = 0;
+                for (DocumentSnapshot messageDoc : messageDocs) {
+                    Message message = messageDoc.exists() ? messageDoc.toObject(Message.class) : null;
+                    if (message == null || !conversationId.equals(message.getConversationId())
+                            || userId.equals(message.getSenderId())
+                            || (message.getReadBy() != null && message.getReadBy().contains(userId))) {
+                        continue;
+                    }
+
+                    transaction.update(messageDoc.getReference(), "readBy", FieldValue.arrayUnion(userId));
+                    newlyRead++;
+                }
+
+                Conversation conversation = conversationDoc.toObject(Conversation.class);
+                int remaining = conversation != null ? Math.max(0, conversation.unreadCountFor(userId) - newlyRead) : 0;
+                transaction.update(conversationRef, FieldPath.of(UNREAD_COUNTS_FIELD, userId), remaining);
+                return remaining;
+            }).get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error marking messages read by {} in conversation: {}", userId, conversationId, e);
+            throw new RuntimeException("Failed to mark messages as read", e);
+        }
+    }
+
     // ========================================
     // MESSAGE OPERATIONS
     // ========================================
@@ -176,30 +257,33 @@ public class AllAuthUserRepository {
 
     /**
      * Find account by ID (works for both Tenant and Landlord)
+     * One read in the collection given by the role directory; IDs unknown to the
+     * directory are probed in both collections concurrently
      */
     public Optional<Account> findAccountById(String userId) {
         try {
-
-            // Try tenants collection first
-            DocumentSnapshot document = firestore
-                    .collection("tenants")
-                    .document(userId)
-                    .get()
-                    .get();
-
-            if (document.exists()) {
-                return Optional.of(document.toObject(Account.class));
+            Account.AccountRoleEnum role = roleDirectory.lookup(userId);
+            if (role != null) {
+                DocumentSnapshot document = firestore
+                        .collection(AccountRoleDirectory.collectionFor(role))
+                        .document(userId)
+                        .get()
+                        .get();
+
+                return document.exists() ? Optional.ofNullable(document.toObject(Account.class)) : Optional.empty();
             }
 
-            // Try landlords collection
-            document =  firestore
-                    .collection("landlords")
-                    .document(userId)
-                    .get()
-                    .get();
-
-            if (document.exists()) {
-                return Optional.ofNullable(document.toObject(Account.class));
+            ApiFuture<DocumentSnapshot> tenantFuture = firestore.collection("tenants").document(userId).get();
+            ApiFuture<DocumentSnapshot> landlordFuture = firestore.collection("landlords").document(userId).get();
+
+            for (DocumentSnapshot document : List.of(tenantFuture.get(), landlordFuture.get())) {
+                if (document.exists()) {
+                    Account account = document.toObject(Account.class);
+                    if (account != null) {
+                        roleDirectory.record(userId, account.getRole());
+                    }
+                    return Optional.ofNullable(account);
+                }
             }
 
             return Optional.empty();
@@ -209,6 +293,101 @@ public class AllAuthUserRepository {
         }
     }
 
+    /**
+     * Find many accounts by ID (tenants and landlords)
+     * One batched role lookup for IDs not cached, then at most one batched getAll per collection,
+     * issued concurrently; IDs unknown to the role directory are requested from both collections
+     * @return accounts keyed by ID; missing IDs are absent
+     */
+    public Map<String, Account> findAccountsByIds(Collection<String> userIds) {
+        Map<String, Account> accounts = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return accounts;
+        }
+
+        try {
+            Map<String, Account.AccountRoleEnum> roles = roleDirectory.lookupAll(userIds);
+            List<DocumentReference> tenantRefs = new ArrayList<>();
+            List<DocumentReference> landlordRefs = new ArrayList<>();
+            for (String userId : new LinkedHashSet<>(userIds)) {
+                Account.AccountRoleEnum role = roles.get(userId);
+                if (role != Account.AccountRoleEnum.LANDLORD) {
+                    tenantRefs.add(firestore.collection("tenants").document(userId));
+                }
+                if (role != Account.AccountRoleEnum.TENANT) {
+                    landlordRefs.add(firestore.collection("landlords").document(userId));
+                }
+            }
+
+            List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+            for (List<DocumentReference> refs : List.of(tenantRefs, landlordRefs)) {
+                if (!refs.isEmpty()) {
+                    futures.add(firestore.getAll(refs.toArray(new DocumentReference[0])));
+                }
+            }
+
+            for (ApiFuture<List<DocumentSnapshot>> future : futures) {
+                for (DocumentSnapshot document : future.get()) {
+                    if (document.exists()) {
+                        Account account = document.toObject(Account.class);
+                        accounts.putIfAbsent(document.getId(), account);
+                        if (!roles.containsKey(document.getId())) {
+                            roleDirectory.record(document.getId(), account.getRole());
+                        }
+                    }
+                }
+            }
+
+            return accounts;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error finding accounts by IDs: {}", userIds, e);
+            throw new RuntimeException("Failed to find accounts", e);
+        }
+    }
+
+    /**
+     * Find an account's display summary (served from the account summary cache when possible)
+     */
+    public Optional<AccountSummary> findAccountSummaryById(String userId) {
+        AccountSummary cached = accountSummaryCache.get(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long loadSequence = accountSummaryCache.beginLoad();
+        return findAccountById(userId).map(account -> {
+            AccountSummary summary = AccountSummary.fromAccount(account);
+            accountSummaryCache.put(summary, loadSequence);
+            return summary;
+        });
+    }
+
+    /**
+     * Find many account summaries; cache misses are loaded with {@link #findAccountsByIds}
+     * @return summaries keyed by ID; missing IDs are absent
+     */
+    public Map<String, AccountSummary> findAccountSummariesByIds(Collection<String> userIds) {
+        Map<String, AccountSummary> summaries = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            AccountSummary cached = accountSummaryCache.get(userId);
+            if (cached != null) {
+                summaries.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+
+        long loadSequence = accountSummaryCache.beginLoad();
+        findAccountsByIds(misses).forEach((userId, account) -> {
+            AccountSummary summary = AccountSummary.fromAccount(account);
+            accountSummaryCache.put(summary, loadSequence);
+            summaries.put(userId, summary);
+        });
+        return summaries;
+    }
+
     /**
      * Update account (works for both Tenant and Landlord)
      */
@@ -224,6 +403,10 @@ public class AllAuthUserRepository {
                     .set(account)
                     .get();
 
+            accountSummaryCache.invalidate(userId);
+            if (account.getRole() == Account.AccountRoleEnum.TENANT) {
+                candidateIndex.onTenantStatusChanged(userId, account.isActive());
+            }
             return account;
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error updating account: {}", userId, e);
@@ -231,13 +414,27 @@ public class AllAuthUserRepository {
         }
     }
     /**
-     * Find all messages in a conversation
+     * Find one page of messages in a conversation, ordered by createdAt then document ID
+     * (the ID breaks ties between messages sent in the same instant)
+     *
+     * @param afterCreatedAt createdAt of the last message already seen, or null to start from the end
+     * @param afterMessageId ID of the last message already seen (ignored without afterCreatedAt)
+     * @param newestFirst    true to page back in time, false to page forward
      */
-    public List<Message> findMessagesByConversationId(String conversationId) {
+    public List<Message> findMessagesPage(String conversationId, Timestamp afterCreatedAt, String afterMessageId,
+                                          boolean newestFirst, int limit) {
         try {
-            List<QueryDocumentSnapshot> documents = firestore.collection(MESSAGES_COLLECTION)
+            Query.Direction direction = newestFirst ? Query.Direction.DESCENDING : Query.Direction.ASCENDING;
+            Query query = firestore.collection(MESSAGES_COLLECTION)
                     .whereEqualTo("conversationId", conversationId)
-                    .orderBy("createdAt", com.google.cloud.firestore.Query.Direction.ASCENDING)
+                    .orderBy("createdAt", direction)
+                    .orderBy(FieldPath.documentId(), direction);
+
+            if (afterCreatedAt != null) {
+                query = query.startAfter(afterCreatedAt, afterMessageId);
+            }
+
+            List<QueryDocumentSnapshot> documents = query.limit(limit)
                     .get()
                     .get()
                     .getDocuments();
@@ -0,0 +1,177 @@
+package org.example.Broomate.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.Account;
+import org.example.Broomate.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Directory of normalized email -> account ID and role, so resolving an email is one
+ * point read instead of an email query on tenants and then landlords.
+ *
+ * Persisted in the emailDirectory collection with the normalized email as document ID
+ * (written in the same batch as the account) and cached in memory; emails never change,
+ * so entries only leave the cache by size or TTL. Signup writes its entry with
+ * {@link #addCreateToBatch}, which fails the whole batch if the email is taken.
+ */
+@Slf4j
+@Component
+public class EmailDirectory {
+
+    static final String EMAIL_DIRECTORY_COLLECTION = "emailDirectory";
+    private static final String METRIC_PREFIX = "broomate.cache.email_directory";
+
+    public record Entry(String accountId, Account.AccountRoleEnum role) {
+    }
+
+    private final Firestore firestore;
+    private final BoundedTtlCache<String, Entry> cache;
+
+    public EmailDirectory(Firestore firestore,
+                          @Value("${broomate.cache.email-directory.max-size:10000}") int maxSize,
+                          @Value("${broomate.cache.email-directory.ttl-seconds:3600}") long ttlSeconds,
+                          MeterRegistry meterRegistry) {
+        this.firestore = firestore;
+        this.cache = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+
+        Gauge.builder(METRIC_PREFIX + ".size", cache, BoundedTtlCache::size).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", cache, c -> c.stats().hits()).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", cache, c -> c.stats().misses()).register(meterRegistry);
+    }
+
+    /**
+     * Lower-cased, trimmed email; the form used as directory key
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Account registered under an email, or null if there is none
+     */
+    public Entry lookup(String email) {
+        String key = normalize(email);
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+
+        Entry cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            DocumentSnapshot doc = entryDocument(key).get().get();
+            String accountId = doc.exists() ? doc.getString("accountId") : null;
+            String role = doc.exists() ? doc.getString("role") : null;
+            if (accountId == null || role == null) {
+                return null;
+            }
+
+            Entry entry = new Entry(accountId, Account.AccountRoleEnum.valueOf(role));
+            cache.put(key, entry);
+            return entry;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error looking up email directory entry", e);
+            throw new RuntimeException("Failed to look up email", e);
+        }
+    }
+
+    /**
+     * Add the entry to a batch that also writes the account, replacing any existing entry
+     */
+    public void addToBatch(WriteBatch batch, String email, String accountId, Account.AccountRoleEnum role) {
+        batch.set(entryDocument(normalize(email)), entryFields(accountId, role));
+    }
+
+    /**
+     * Add the entry to a batch as a create, so the batch fails if the email is already registered
+     * (see {@link #isAlreadyExists})
+     */
+    public void addCreateToBatch(WriteBatch batch, String email, String accountId, Account.AccountRoleEnum role) {
+        batch.create(entryDocument(normalize(email)), entryFields(accountId, role));
+    }
+
+    /**
+     * Update the cache once a batch holding the entry has committed
+     */
+    public void remember(String email, String accountId, Account.AccountRoleEnum role) {
+        if (email != null && accountId != null && role != null) {
+            cache.put(normalize(email), new Entry(accountId, role));
+        }
+    }
+
+    /**
+     * Remember an entry discovered by querying the account collections, and persist it in the background
+     */
+    public void record(String email, String accountId, Account.AccountRoleEnum role) {
+        if (email == null || accountId == null || role == null) {
+            return;
+        }
+
+        remember(email, accountId, role);
+        ApiFuture<WriteResult> write = entryDocument(normalize(email)).set(entryFields(accountId, role));
+        ApiFutures.addCallback(write, new ApiFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("Error persisting email directory entry of account {}", accountId, t);
+            }
+
+            @Override
+            public void onSuccess(WriteResult result) {
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * True if a failed write was rejected because a created document already existed
+     */
+    public static boolean isAlreadyExists(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof FirestoreException fe && fe.getStatus() != null
+                    && fe.getStatus().getCode() == Status.Code.ALREADY_EXISTS) {
+                return true;
+            }
+            if (t instanceof ApiException ae && ae.getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Document ID for a normalized email ('/' is not allowed in IDs)
+     */
+    public static String documentId(String normalizedEmail) {
+        return normalizedEmail.replace("%", "%25").replace("/", "%2F");
+    }
+
+    private static Map<String, Object> entryFields(String accountId, Account.AccountRoleEnum role) {
+        return Map.of("accountId", accountId, "role", role.name());
+    }
+
+    private DocumentReference entryDocument(String normalizedEmail) {
+        return firestore.collection(EMAIL_DIRECTORY_COLLECTION).document(documentId(normalizedEmail));
+    }
+}
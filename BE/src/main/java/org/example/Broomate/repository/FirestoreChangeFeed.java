@@ -0,0 +1,150 @@
+package org.example.Broomate.repository;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Polls Firestore for recently written documents, so the in-memory indexes and caches
+ * of every node see writes made on the other nodes.
+ *
+ * A subscription names a collection and the timestamp field its writers set
+ * (createdAt for insert-only collections, updatedAt otherwise). Every
+ * {@code broomate.change-feed.poll-interval-ms} each watched collection is queried once
+ * for documents whose field is later than the previous poll's start minus
+ * {@code overlap-ms}, and the documents are handed to its subscribers. The overlap
+ * covers documents committed a little after the timestamp they carry (clock skew,
+ * retried writes), so a document can be delivered more than once and subscribers
+ * must be idempotent. A failed poll is retried from the same position.
+ */
+@Slf4j
+@Component
+public class FirestoreChangeFeed {
+
+    private final Firestore firestore;
+    private final long pollIntervalMs;
+    private final long overlapMs;
+
+    // "collection/field" -> watched query
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService poller;
+
+    public FirestoreChangeFeed(Firestore firestore,
+                               @Value("${broomate.change-feed.poll-interval-ms:2000}") long pollIntervalMs,
+                               @Value("${broomate.change-feed.overlap-ms:5000}") long overlapMs) {
+        this.firestore = firestore;
+        this.pollIntervalMs = Math.max(pollIntervalMs, 100);
+        this.overlapMs = Math.max(overlapMs, 0);
+    }
+
+    /**
+     * Receive every document of {@code collection} written from now on, in batches,
+     * on the feed's thread
+     */
+    public void subscribe(String collection, String timestampField, Consumer<List<QueryDocumentSnapshot>> subscriber) {
+        watches.computeIfAbsent(collection + "/" + timestampField, key -> new Watch(collection, timestampField))
+                .subscribers.add(subscriber);
+    }
+
+    /**
+     * Whether the collection was polled successfully within the last few intervals,
+     * i.e. subscribers have seen writes up to about one poll interval ago
+     */
+    public boolean isCurrent(String collection, String timestampField) {
+        Watch watch = watches.get(collection + "/" + timestampField);
+        return watch != null && System.currentTimeMillis() - watch.lastSuccessAt <= 3 * pollIntervalMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "firestore-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollAll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Firestore change feed started: {} watched collections, every {} ms (overlap {} ms)",
+                watches.size(), pollIntervalMs, overlapMs);
+    }
+
+    private void pollAll() {
+        for (Watch watch : watches.values()) {
+            try {
+                poll(watch);
+            } catch (RuntimeException e) {
+                log.error("Error polling {} for changes", watch.collection, e);
+            }
+        }
+    }
+
+    private void poll(Watch watch) {
+        long startedAt = System.currentTimeMillis();
+        long sinceMillis = watch.polledFrom - overlapMs;
+        List<QueryDocumentSnapshot> documents;
+        try {
+            documents = firestore.collection(watch.collection)
+                    .whereGreaterThan(watch.timestampField, Timestamp.ofTimeMicroseconds(sinceMillis * 1000))
+                    .get()
+                    .get()
+                    .getDocuments();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            log.warn("Error polling {} for changes, retrying next interval", watch.collection, e);
+            return;
+        }
+
+        if (!documents.isEmpty()) {
+            for (Consumer<List<QueryDocumentSnapshot>> subscriber : watch.subscribers) {
+                try {
+                    subscriber.accept(documents);
+                } catch (RuntimeException e) {
+                    log.error("Error applying {} changes of {}", documents.size(), watch.collection, e);
+                }
+            }
+        }
+
+        watch.polledFrom = startedAt;
+        watch.lastSuccessAt = System.currentTimeMillis();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    private static final class Watch {
+        private final String collection;
+        private final String timestampField;
+        private final List<Consumer<List<QueryDocumentSnapshot>>> subscribers = new CopyOnWriteArrayList<>();
+
+        // Start of the last successful poll; the first poll looks back from when the watch was created
+        private volatile long polledFrom = System.currentTimeMillis();
+        private volatile long lastSuccessAt = 0;
+
+        private Watch(String collection, String timestampField) {
+            this.collection = collection;
+            this.timestampField = timestampField;
+        }
+    }
+}
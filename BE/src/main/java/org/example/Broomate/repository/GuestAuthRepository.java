@@ -1,15 +1,21 @@
 package org.example.Broomate.repository;
 
+import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
 import com.google.firebase.cloud.FirestoreClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.Broomate.model.Account;
 import org.example.Broomate.model.Landlord;
 import org.example.Broomate.model.Tenant;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 @RequiredArgsConstructor
@@ -20,43 +26,55 @@ public class GuestAuthRepository {
     private static final String TENANTS_COLLECTION = "tenants";
     private static final String LANDLORDS_COLLECTION = "landlords";
     private final Firestore firestore;
+    private final TenantCandidateIndex candidateIndex;
+    private final AccountRoleDirectory roleDirectory;
+    private final EmailDirectory emailDirectory;
+
+    // false once the email directory backfill has run: a directory miss then means no account
+    @Value("${broomate.email-directory.fallback-queries:true}")
+    private boolean fallbackQueries;
+
+    // Accounts by normalized email, for directory misses while fallbackQueries is on (null until first needed)
+    private volatile Map<String, EmailDirectory.Entry> legacyEmails;
 
     // ========================================
-    // FIND BY EMAIL (checks both collections)
+    // FIND BY EMAIL (email directory, then both collections)
     // ========================================
     public Optional<Account> findByEmail(String email) {
         try {
+            // 1. Point read through the email directory
+            EmailDirectory.Entry entry = emailDirectory.lookup(email);
+            if (entry != null) {
+                DocumentSnapshot doc = firestore
+                        .collection(AccountRoleDirectory.collectionFor(entry.role()))
+                        .document(entry.accountId())
+                        .get()
+                        .get();
+                if (doc.exists()) {
+                    return Optional.ofNullable(entry.role() == Account.AccountRoleEnum.LANDLORD
+                            ? doc.toObject(Landlord.class)
+                            : doc.toObject(Tenant.class));
+                }
+            }
 
-            // 1. Try to find in tenants collection
-            QueryDocumentSnapshot tenantDoc = (QueryDocumentSnapshot) firestore
-                    .collection(TENANTS_COLLECTION)
-                    .whereEqualTo("email", email)
-                    .limit(1)
-                    .get()
-                    .get()
-                    .getDocuments()
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
-
-            if (tenantDoc != null) {
-                return Optional.of(tenantDoc.toObject(Tenant.class));
+            if (!fallbackQueries) {
+                return Optional.empty();
             }
 
-            // 2. Try to find in landlords collection
-            QueryDocumentSnapshot landlordDoc = (QueryDocumentSnapshot) firestore
-                    .collection(LANDLORDS_COLLECTION)
-                    .whereEqualTo("email", email)
-                    .limit(1)
-                    .get()
-                    .get()
-                    .getDocuments()
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
-
-            if (landlordDoc != null) {
-                return Optional.of(landlordDoc.toObject(Landlord.class));
+            // 2. Accounts not in the directory yet, matched case-insensitively like the directory
+            EmailDirectory.Entry legacy = legacyEmails().get(EmailDirectory.normalize(email));
+            if (legacy != null) {
+                DocumentSnapshot doc = firestore
+                        .collection(AccountRoleDirectory.collectionFor(legacy.role()))
+                        .document(legacy.accountId())
+                        .get()
+                        .get();
+                if (doc.exists()) {
+                    emailDirectory.record(email, legacy.accountId(), legacy.role());
+                    return Optional.ofNullable(legacy.role() == Account.AccountRoleEnum.LANDLORD
+                            ? doc.toObject(Landlord.class)
+                            : doc.toObject(Tenant.class));
+                }
             }
 
             return Optional.empty();
@@ -66,37 +84,115 @@ public class GuestAuthRepository {
         }
     }
 
+    /**
+     * Normalized email -> account of every tenant and landlord, read once (emails only) on the
+     * first directory miss. Firestore equality is case-sensitive, so querying the raw email
+     * would miss an account stored as "Alice@x.com" for "alice@x.com" and let signup register
+     * it twice. Accounts created since go through the directory, so the map is not refreshed.
+     */
+    private Map<String, EmailDirectory.Entry> legacyEmails() throws InterruptedException, ExecutionException {
+        Map<String, EmailDirectory.Entry> emails = legacyEmails;
+        if (emails != null) {
+            return emails;
+        }
+
+        synchronized (this) {
+            if (legacyEmails == null) {
+                Map<String, EmailDirectory.Entry> loaded = new HashMap<>();
+                for (Account.AccountRoleEnum role : List.of(Account.AccountRoleEnum.TENANT, Account.AccountRoleEnum.LANDLORD)) {
+                    for (QueryDocumentSnapshot doc : firestore.collection(AccountRoleDirectory.collectionFor(role))
+                            .select("email")
+                            .get()
+                            .get()
+                            .getDocuments()) {
+                        String email = EmailDirectory.normalize(doc.getString("email"));
+                        if (email != null && !email.isEmpty()) {
+                            // Same rule as the directory backfill: the first account found keeps a shared email
+                            loaded.putIfAbsent(email, new EmailDirectory.Entry(doc.getId(), role));
+                        }
+                    }
+                }
+                log.info("Loaded {} account emails for lookups outside the email directory", loaded.size());
+                legacyEmails = loaded;
+            }
+            return legacyEmails;
+        }
+    }
+
     // ========================================
-    // SAVE TENANT
+    // CREATE TENANT / LANDLORD (signup)
     // ========================================
-    public Tenant saveTenant(Tenant tenant) {
-        try {
-            firestore.collection(TENANTS_COLLECTION)
-                    .document(tenant.getId())
-                    .set(tenant)
-                    .get();
 
-            return tenant;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error saving tenant", e);
-            throw new RuntimeException("Failed to save tenant", e);
+    /**
+     * Store a new tenant, or return empty if its email is already registered
+     */
+    public Optional<Tenant> createTenant(Tenant tenant) {
+        if (!writeAccount(tenant, TENANTS_COLLECTION, Account.AccountRoleEnum.TENANT, true)) {
+            return Optional.empty();
+        }
+
+        candidateIndex.onTenantSaved(tenant);
+        return Optional.of(tenant);
+    }
+
+    /**
+     * Store a new landlord, or return empty if its email is already registered
+     */
+    public Optional<Landlord> createLandlord(Landlord landlord) {
+        if (!writeAccount(landlord, LANDLORDS_COLLECTION, Account.AccountRoleEnum.LANDLORD, true)) {
+            return Optional.empty();
         }
+        return Optional.of(landlord);
+    }
+
+    // ========================================
+    // SAVE TENANT
+    // ========================================
+    public Tenant saveTenant(Tenant tenant) {
+        writeAccount(tenant, TENANTS_COLLECTION, Account.AccountRoleEnum.TENANT, false);
+        candidateIndex.onTenantSaved(tenant);
+        return tenant;
     }
 
     // ========================================
     // SAVE LANDLORD
     // ========================================
     public Landlord saveLandlord(Landlord landlord) {
+        writeAccount(landlord, LANDLORDS_COLLECTION, Account.AccountRoleEnum.LANDLORD, false);
+        return landlord;
+    }
+
+    /**
+     * Write the account with its role and email directory entries in one atomic batch
+     *
+     * @param create write the email entry as a create, failing if the email is taken
+     * @return false if {@code create} was set and the email is already registered
+     */
+    private boolean writeAccount(Account account, String collection, Account.AccountRoleEnum role, boolean create) {
         try {
-            firestore.collection(LANDLORDS_COLLECTION)
-                    .document(landlord.getId())
-                    .set(landlord)
-                    .get();
+            WriteBatch batch = firestore.batch();
+            batch.set(firestore.collection(collection).document(account.getId()), account);
+            roleDirectory.addToBatch(batch, account.getId(), role);
+            if (create) {
+                emailDirectory.addCreateToBatch(batch, account.getEmail(), account.getId(), role);
+            } else if (account.getEmail() != null) {
+                emailDirectory.addToBatch(batch, account.getEmail(), account.getId(), role);
+            }
+            batch.commit().get();
 
-            return landlord;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error saving landlord", e);
-            throw new RuntimeException("Failed to save landlord", e);
+            roleDirectory.remember(account.getId(), role);
+            emailDirectory.remember(account.getEmail(), account.getId(), role);
+            return true;
+        } catch (ExecutionException e) {
+            if (create && EmailDirectory.isAlreadyExists(e)) {
+                log.warn("Email already registered, not creating {} {}", role, account.getId());
+                return false;
+            }
+            log.error("Error saving {}", role, e);
+            throw new RuntimeException("Failed to save " + role.name().toLowerCase(), e);
+        } catch (InterruptedException e) {
+            log.error("Error saving {}", role, e);
+            throw new RuntimeException("Failed to save " + role.name().toLowerCase(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package org.example.Broomate.repository;
+
+import org.example.Broomate.util.BoundedTtlCache;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thread-safe, size-bounded map of key -> immutable set of IDs with a time-to-live per entry.
+ * Used by the in-process relationship caches (match partners, room bookmarkers).
+ *
+ * A load is bracketed by {@link #beginLoad} and {@link #put}: changes applied to the key
+ * while its query runs are recorded and replayed onto the loaded set, so a load that read
+ * the store before a change cannot overwrite it.
+ */
+final class IdSetCache {
+
+    private final BoundedTtlCache<String, Entry> entries;
+
+    IdSetCache(int maxSize, long ttlSeconds) {
+        this.entries = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * Cached IDs for a key, or null if unknown, expired or still loading
+     */
+    synchronized Set<String> get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.ids;
+    }
+
+    /**
+     * Start recording changes to a key, before querying the store for it
+     */
+    synchronized void beginLoad(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.ids != null) {
+            // A load already in progress keeps its placeholder, which has recorded more changes
+            entries.put(key, new Entry(null));
+        }
+    }
+
+    /**
+     * Cache the IDs loaded since {@link #beginLoad}, with the changes made meanwhile applied
+     *
+     * @return the IDs to use: the cached set, or the loaded ones if the placeholder was evicted
+     *         or another load finished first
+     */
+    synchronized Set<String> put(String key, Set<String> loadedIds) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Collections.unmodifiableSet(new HashSet<>(loadedIds));
+        }
+        if (entry.ids != null) {
+            return entry.ids;
+        }
+
+        Set<String> ids = new HashSet<>(loadedIds);
+        entry.changesDuringLoad.forEach((id, present) -> apply(ids, id, present));
+        Entry loaded = new Entry(Collections.unmodifiableSet(ids));
+        entries.put(key, loaded);
+        return loaded.ids;
+    }
+
+    /**
+     * Add or remove one ID, only if the key is cached or loading
+     */
+    synchronized void update(String key, String id, boolean present) {
+        if (key == null || id == null) {
+            return;
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.ids == null) {
+            entry.changesDuringLoad.put(id, present);
+            return;
+        }
+
+        // Replaced in place, so the entry keeps its expiry
+        Set<String> ids = new HashSet<>(entry.ids);
+        apply(ids, id, present);
+        entry.ids = Collections.unmodifiableSet(ids);
+    }
+
+    private static void apply(Set<String> ids, String id, boolean present) {
+        if (present) {
+            ids.add(id);
+        } else {
+            ids.remove(id);
+        }
+    }
+
+    /**
+     * Loaded IDs, or a placeholder (null IDs) recording changes while the key loads;
+     * mutated only under the IdSetCache monitor
+     */
+    private static final class Entry {
+        private Set<String> ids;
+        private final Map<String, Boolean> changesDuringLoad = new LinkedHashMap<>();
+
+        private Entry(Set<String> ids) {
+            this.ids = ids;
+        }
+    }
+}
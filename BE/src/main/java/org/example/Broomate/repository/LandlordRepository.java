@@ -24,6 +24,7 @@ public class LandlordRepository {
     private static final String LANDLORDS_COLLECTION = "landlords";
     private static final String ROOMS_COLLECTION = "rooms";
     private final Firestore firestore;
+    private final AccountSummaryCache accountSummaryCache;
 
     // ========================================
     // LANDLORD CRUD OPERATIONS
@@ -63,6 +64,7 @@ public class LandlordRepository {
                     .set(landlord)
                     .get();
 
+            accountSummaryCache.invalidate(landlordId);
             return landlord;
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error updating landlord: {}", landlordId, e);
@@ -0,0 +1,64 @@
+package org.example.Broomate.repository;
+
+import org.example.Broomate.model.Match;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * In-process cache of each tenant's active match partners.
+ *
+ * Entries are filled by TenantRepository from a single match query and kept in
+ * sync on every match write on this instance. Matches written elsewhere (new
+ * matches on other instances, or a status changed to INACTIVE or BLOCKED) arrive
+ * through the change feed, which needs writers to set updatedAt; the TTL only
+ * bounds staleness from writes that do not. At most
+ * {@code broomate.matches.partner-cache-max-size} tenants are cached.
+ */
+@Component
+public class MatchPartnerCache {
+
+    private static final String MATCHES_COLLECTION = "matches";
+
+    private final IdSetCache partnersByTenant;
+
+    public MatchPartnerCache(@Value("${broomate.matches.partner-cache-max-size:10000}") int maxSize,
+                             @Value("${broomate.matches.partner-cache-ttl-seconds:300}") long ttlSeconds,
+                             FirestoreChangeFeed changeFeed) {
+        this.partnersByTenant = new IdSetCache(maxSize, ttlSeconds);
+        changeFeed.subscribe(MATCHES_COLLECTION, "updatedAt",
+                documents -> documents.forEach(doc -> onMatchSaved(doc.toObject(Match.class))));
+    }
+
+    /**
+     * Cached active partner IDs of a tenant, or null if unknown or expired
+     */
+    public Set<String> getPartners(String tenantId) {
+        return partnersByTenant.get(tenantId);
+    }
+
+    /**
+     * Call before querying a tenant's matches, so match writes made meanwhile are kept
+     */
+    public void beginLoad(String tenantId) {
+        partnersByTenant.beginLoad(tenantId);
+    }
+
+    /**
+     * Cache the partners queried since {@link #beginLoad}
+     * @return the partner IDs, including match writes made while the query ran
+     */
+    public Set<String> putPartners(String tenantId, Set<String> partnerIds) {
+        return partnersByTenant.put(tenantId, partnerIds);
+    }
+
+    /**
+     * Apply a written match to both tenants' cached partner sets
+     */
+    public void onMatchSaved(Match match) {
+        boolean active = match.getStatus() == Match.MatchStatusEnum.ACTIVE;
+        partnersByTenant.update(match.getTenant1Id(), match.getTenant2Id(), active);
+        partnersByTenant.update(match.getTenant2Id(), match.getTenant1Id(), active);
+    }
+}
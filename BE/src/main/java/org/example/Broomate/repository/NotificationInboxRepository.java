@@ -0,0 +1,166 @@
+package org.example.Broomate.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.NotificationInbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user inbox of WebSocket notifications sent while the user was offline.
+ *
+ * Each user has one document holding at most {@code broomate.notifications.inbox.max-items}
+ * items (oldest dropped first); items older than {@code ttl-hours} are discarded on the
+ * next append or acknowledge, and the document's expiresAt can back a Firestore TTL policy.
+ * Replayed notifications are only removed once the client acknowledges them, so a
+ * replay lost on the way (dropped session, dropped frame) is sent again next time.
+ * Items are numbered by the append transaction and acknowledged by that sequence, so an
+ * item appended while a replay was in flight is never covered by its acknowledgement.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class NotificationInboxRepository {
+
+    private static final String INBOX_COLLECTION = "notificationInbox";
+
+    private final Firestore firestore;
+
+    @Value("${broomate.notifications.inbox.max-items:100}")
+    private int maxItems;
+
+    @Value("${broomate.notifications.inbox.ttl-hours:168}")
+    private long ttlHours;
+
+    /**
+     * Add a notification to a user's inbox in the background
+     */
+    public void append(String userId, String destination, Map<String, Object> payload) {
+        DocumentReference inboxRef = firestore.collection(INBOX_COLLECTION).document(userId);
+
+        ApiFuture<Void> write = firestore.runTransaction(transaction -> {
+            DocumentSnapshot inboxDoc = transaction.get(inboxRef).get();
+            long seq = lastSeq(inboxDoc) + 1;
+
+            List<NotificationInbox.Item> items = liveItems(inboxDoc);
+            items.add(NotificationInbox.Item.builder()
+                    .destination(destination)
+                    .payload(payload)
+                    .createdAt(Timestamp.now())
+                    .seq(seq)
+                    .build());
+            if (items.size() > maxItems) {
+                items = new ArrayList<>(items.subList(items.size() - maxItems, items.size()));
+            }
+
+            transaction.set(inboxRef, NotificationInbox.builder()
+                    .items(items)
+                    .expiresAt(expiresAfter(Timestamp.now()))
+                    .lastSeq(seq)
+                    .build());
+            return null;
+        });
+
+        ApiFutures.addCallback(write, new ApiFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("Error storing offline notification for user {}", userId, t);
+            }
+
+            @Override
+            public void onSuccess(Void result) {
+                log.info("Stored offline notification for user {} ({})", userId, destination);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Every unexpired notification in a user's inbox, oldest first; nothing is removed
+     * until the client {@link #acknowledge acknowledges} it
+     */
+    public ApiFuture<List<NotificationInbox.Item>> load(String userId) {
+        ApiFuture<DocumentSnapshot> read = firestore.collection(INBOX_COLLECTION).document(userId).get();
+        return ApiFutures.transform(read, this::liveItems, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Remove the notifications numbered up to {@code upToSeq} (the last one replayed to the
+     * client) in the background; notifications appended since stay in the inbox
+     */
+    public void acknowledge(String userId, long upToSeq) {
+        DocumentReference inboxRef = firestore.collection(INBOX_COLLECTION).document(userId);
+
+        ApiFuture<Integer> write = firestore.runTransaction(transaction -> {
+            DocumentSnapshot inboxDoc = transaction.get(inboxRef).get();
+            if (!inboxDoc.exists()) {
+                return 0;
+            }
+
+            List<NotificationInbox.Item> items = liveItems(inboxDoc);
+            List<NotificationInbox.Item> remaining = new ArrayList<>();
+            for (NotificationInbox.Item item : items) {
+                if (item.getSeq() > upToSeq) {
+                    remaining.add(item);
+                }
+            }
+
+            // Kept even when empty, so the sequence never restarts under a late acknowledgement
+            NotificationInbox inbox = inboxDoc.toObject(NotificationInbox.class);
+            transaction.set(inboxRef, NotificationInbox.builder()
+                    .items(remaining)
+                    .expiresAt(inbox != null ? inbox.getExpiresAt() : expiresAfter(Timestamp.now()))
+                    .lastSeq(lastSeq(inboxDoc))
+                    .build());
+            return items.size() - remaining.size();
+        });
+
+        ApiFutures.addCallback(write, new ApiFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("Error clearing acknowledged notifications of user {}", userId, t);
+            }
+
+            @Override
+            public void onSuccess(Integer removed) {
+                log.info("Cleared {} acknowledged offline notifications of user {}", removed, userId);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static long lastSeq(DocumentSnapshot inboxDoc) {
+        NotificationInbox inbox = inboxDoc.exists() ? inboxDoc.toObject(NotificationInbox.class) : null;
+        return inbox == null ? 0 : inbox.getLastSeq();
+    }
+
+    private List<NotificationInbox.Item> liveItems(DocumentSnapshot inboxDoc) {
+        NotificationInbox inbox = inboxDoc.exists() ? inboxDoc.toObject(NotificationInbox.class) : null;
+        List<NotificationInbox.Item> items = new ArrayList<>();
+        if (inbox == null || inbox.getItems() == null) {
+            return items;
+        }
+
+        Timestamp now = Timestamp.now();
+        for (NotificationInbox.Item item : inbox.getItems()) {
+            if (item.getCreatedAt() != null && expiresAfter(item.getCreatedAt()).compareTo(now) > 0) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private Timestamp expiresAfter(Timestamp from) {
+        return Timestamp.ofTimeSecondsAndNanos(from.getSeconds() + ttlHours * 3600, from.getNanos());
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.Broomate.repository;
+
+import org.example.Broomate.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded TTL + LRU cache of pinned swipe-deck rankings, keyed by deck ID.
+ *
+ * Paging a deck through a pinned ranking keeps its order fixed while profiles change
+ * (a candidate whose score moves across the cursor is neither skipped nor shown twice).
+ * Pins are local to this node; a page request whose pin is gone (another node, evicted,
+ * expired) pins a new ranking after the last candidate shown.
+ */
+@Component
+public class PinnedSwipeDecks {
+
+    private final BoundedTtlCache<String, PinnedDeck> decks;
+
+    public PinnedSwipeDecks(@Value("${broomate.swipe-deck.pinned-max-decks:2000}") int maxSize,
+                            @Value("${broomate.swipe-deck.pinned-ttl-minutes:30}") long ttlMinutes) {
+        this.decks = new BoundedTtlCache<>(maxSize, ttlMinutes * 60_000);
+    }
+
+    public PinnedDeck pin(List<TenantCandidateIndex.ScoredTenant> ranking, boolean full) {
+        float[] scores = new float[ranking.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = ranking.get(i).getScore();
+        }
+
+        PinnedDeck deck = new PinnedDeck(UUID.randomUUID().toString(),
+                ranking.stream().map(candidate -> candidate.getTenant().getId()).toList(), scores, full);
+        decks.put(deck.id(), deck);
+        return deck;
+    }
+
+    /**
+     * A pinned deck, or null if unknown or expired
+     */
+    public PinnedDeck get(String deckId) {
+        return decks.get(deckId);
+    }
+
+    /**
+     * Candidate IDs in deck order with their scores when pinned
+     *
+     * @param full whether the ranking was cut at the pin size, so more candidates follow its last one
+     */
+    public record PinnedDeck(String id, List<String> tenantIds, float[] scores, boolean full) {
+
+        public int size() {
+            return tenantIds.size();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.Broomate.repository;
+
+import org.example.Broomate.model.Bookmark;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * In-process cache of the tenants who bookmarked each room.
+ *
+ * Filled by TenantRepository from one bookmarks query per room and kept in sync
+ * on bookmark save/delete on this instance. Bookmarks added on other instances
+ * arrive through the change feed (by createdAt); deletions there are not seen,
+ * so the TTL bounds how long a removed bookmarker is still listed. At most
+ * {@code broomate.bookmarks.room-cache-max-size} rooms are cached.
+ */
+@Component
+public class RoomBookmarkerCache {
+
+    private static final String BOOKMARKS_COLLECTION = "bookmarks";
+
+    private final IdSetCache bookmarkersByRoom;
+
+    public RoomBookmarkerCache(@Value("${broomate.bookmarks.room-cache-max-size:10000}") int maxSize,
+                               @Value("${broomate.bookmarks.room-cache-ttl-seconds:300}") long ttlSeconds,
+                               FirestoreChangeFeed changeFeed) {
+        this.bookmarkersByRoom = new IdSetCache(maxSize, ttlSeconds);
+        changeFeed.subscribe(BOOKMARKS_COLLECTION, "createdAt", documents -> documents.forEach(doc -> {
+            Bookmark bookmark = doc.toObject(Bookmark.class);
+            onBookmarkSaved(bookmark.getRoomId(), bookmark.getTenantId());
+        }));
+    }
+
+    /**
+     * Cached bookmarker tenant IDs of a room, or null if unknown or expired
+     */
+    public Set<String> getBookmarkers(String roomId) {
+        return bookmarkersByRoom.get(roomId);
+    }
+
+    /**
+     * Call before querying a room's bookmarks, so bookmark writes made meanwhile are kept
+     */
+    public void beginLoad(String roomId) {
+        bookmarkersByRoom.beginLoad(roomId);
+    }
+
+    /**
+     * Cache the bookmarkers queried since {@link #beginLoad}
+     * @return the bookmarker IDs, including bookmark writes made while the query ran
+     */
+    public Set<String> putBookmarkers(String roomId, Set<String> tenantIds) {
+        return bookmarkersByRoom.put(roomId, tenantIds);
+    }
+
+    public void onBookmarkSaved(String roomId, String tenantId) {
+        bookmarkersByRoom.update(roomId, tenantId, true);
+    }
+
+    public void onBookmarkDeleted(String roomId, String tenantId) {
+        bookmarkersByRoom.update(roomId, tenantId, false);
+    }
+}
@@ -0,0 +1,390 @@
+package org.example.Broomate.repository;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.Swipe;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory directed graph of ACCEPT swipes ("A likes B").
+ *
+ * Tenant IDs are mapped to dense ints; each tenant keeps sorted int arrays of the
+ * tenants it likes and the tenants that like it, so "does B like A" is a binary
+ * search over B's likes, with no Firestore round trip. Built from the swipes
+ * collection at startup (outside the lock, then swapped in), updated by
+ * TenantRepository on every ACCEPT swipe saved on this node, and fed the swipes
+ * saved on other nodes by the change feed.
+ *
+ * Answers are trusted while the graph is {@link #isReady ready}. Two tenants liking
+ * each other on different nodes within one feed interval can both see "no"; the node
+ * that saved the first like then gets the second one from the feed and publishes a
+ * {@link MutualLikeDiscovered} event so the match is still created.
+ */
+@Slf4j
+@Component
+public class SwipeGraph {
+
+    private static final String SWIPES_COLLECTION = "swipes";
+    private static final int[] EMPTY = new int[0];
+    private static final long LOAD_RETRY_DELAY_MS = 30_000;
+
+    // Local likes younger than this can race with a reverse like saved on another node
+    private static final long RACE_WINDOW_MS = 60_000;
+
+    private final Firestore firestore;
+    private final FirestoreChangeFeed changeFeed;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Current graph (null until the first load) and likes saved while a load runs; guarded by lock
+    private Adjacency graph;
+    private List<String[]> likesDuringLoad;
+
+    // "liker_target" -> saved at, for likes saved on this node within the race window
+    private final Map<String, Long> recentLocalLikes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService loader;
+
+    public SwipeGraph(Firestore firestore, FirestoreChangeFeed changeFeed, ApplicationEventPublisher eventPublisher) {
+        this.firestore = firestore;
+        this.changeFeed = changeFeed;
+        this.eventPublisher = eventPublisher;
+        changeFeed.subscribe(SWIPES_COLLECTION, "createdAt", this::onFeedSwipes);
+    }
+
+    /**
+     * Both tenants of a mutual like, found when the second like arrived from another node
+     *
+     * @param swipe the like that completed the pair
+     */
+    public record MutualLikeDiscovered(Swipe swipe) {
+    }
+
+    // ========================================
+    // QUERIES
+    // ========================================
+
+    /**
+     * Whether answers reflect the swipes of all nodes up to about one feed interval ago
+     */
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            if (graph == null) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return changeFeed.isCurrent(SWIPES_COLLECTION, "createdAt");
+    }
+
+    /**
+     * Whether {@code likerId} swiped right on {@code targetId}
+     */
+    public boolean likes(String likerId, String targetId) {
+        lock.readLock().lock();
+        try {
+            return graph != null && graph.likes(likerId, targetId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether both tenants swiped right on each other
+     */
+    public boolean isMutual(String tenantAId, String tenantBId) {
+        lock.readLock().lock();
+        try {
+            return graph != null && graph.likes(tenantAId, tenantBId) && graph.likes(tenantBId, tenantAId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of tenants who swiped right on this tenant ("who liked me")
+     */
+    public List<String> findLikers(String tenantId) {
+        lock.readLock().lock();
+        try {
+            return graph != null ? graph.likers(tenantId) : Collections.emptyList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========================================
+    // INCREMENTAL UPDATES
+    // ========================================
+
+    /**
+     * Record an ACCEPT swipe saved on this node
+     */
+    public void onLike(String likerId, String targetId) {
+        if (likerId == null || targetId == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        recentLocalLikes.put(TenantRepository.swipeId(likerId, targetId), now);
+        recentLocalLikes.values().removeIf(savedAt -> now - savedAt > RACE_WINDOW_MS);
+
+        lock.writeLock().lock();
+        try {
+            addLike(likerId, targetId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply swipes written on any node; a like completing a pair with a recent like of this
+     * node may have been missed by the node that saved it, so it is reported
+     */
+    private void onFeedSwipes(List<QueryDocumentSnapshot> documents) {
+        List<Swipe> completingPairs = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            for (QueryDocumentSnapshot doc : documents) {
+                Swipe swipe = doc.toObject(Swipe.class);
+                if (!Swipe.SwipeActionEnum.ACCEPT.equals(swipe.getAction())
+                        || swipe.getSwiperId() == null || swipe.getTargetId() == null) {
+                    continue;
+                }
+
+                if (addLike(swipe.getSwiperId(), swipe.getTargetId())
+                        && recentLocalLikes.containsKey(TenantRepository.swipeId(swipe.getTargetId(), swipe.getSwiperId()))) {
+                    completingPairs.add(swipe);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (Swipe swipe : completingPairs) {
+            log.info("Mutual like of {} and {} completed on another node", swipe.getSwiperId(), swipe.getTargetId());
+            eventPublisher.publishEvent(new MutualLikeDiscovered(swipe));
+        }
+    }
+
+    /**
+     * Add a like to the current graph, and keep it for the graph being loaded; caller holds the write lock
+     *
+     * @return true if the current graph did not have it yet
+     */
+    private boolean addLike(String likerId, String targetId) {
+        if (likesDuringLoad != null) {
+            likesDuringLoad.add(new String[]{likerId, targetId});
+        }
+        return graph != null && graph.addEdge(likerId, targetId);
+    }
+
+    // ========================================
+    // LOADING
+    // ========================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "swipe-graph-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.execute(this::loadOrRetry);
+    }
+
+    private void loadOrRetry() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            // Until loaded, mutual checks read the reverse swipe instead
+            log.error("Error building swipe graph, retrying in {} ms", LOAD_RETRY_DELAY_MS, e);
+            loader.schedule(this::loadOrRetry, LOAD_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Read every ACCEPT swipe into a new graph without holding the lock, then swap it in
+     * together with the likes recorded meanwhile
+     */
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            likesDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Adjacency loaded = new Adjacency();
+        try {
+            long start = System.currentTimeMillis();
+            int edges = 0;
+
+            for (QueryDocumentSnapshot doc : firestore.collection(SWIPES_COLLECTION)
+                    .whereEqualTo("action", Swipe.SwipeActionEnum.ACCEPT.name())
+                    .get()
+                    .get()
+                    .getDocuments()) {
+                Swipe swipe = doc.toObject(Swipe.class);
+                if (swipe.getSwiperId() != null && swipe.getTargetId() != null) {
+                    loaded.addEdge(swipe.getSwiperId(), swipe.getTargetId());
+                    edges++;
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (String[] like : likesDuringLoad) {
+                    loaded.addEdge(like[0], like[1]);
+                }
+                graph = loaded;
+            } finally {
+                likesDuringLoad = null;
+                lock.writeLock().unlock();
+            }
+
+            log.info("Swipe graph loaded: {} tenants, {} likes in {} ms",
+                    loaded.nodeCount, edges, System.currentTimeMillis() - start);
+        } catch (InterruptedException | ExecutionException e) {
+            lock.writeLock().lock();
+            try {
+                likesDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Error loading swipe graph", e);
+            throw new RuntimeException("Failed to load swipe graph", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (loader != null) {
+            loader.shutdownNow();
+        }
+    }
+
+    // ========================================
+    // ADJACENCY STORAGE
+    // ========================================
+
+    /**
+     * Int-mapped adjacency arrays; not thread-safe, the graph guards all access
+     */
+    private static final class Adjacency {
+
+        // Dense ID mapping
+        private final Map<String, Integer> nodeById = new HashMap<>();
+        private String[] idByNode = new String[1024];
+        private int nodeCount = 0;
+
+        // Sorted neighbour arrays, only the first size entries are used
+        private int[][] outLikes = new int[1024][];
+        private int[] outSizes = new int[1024];
+        private int[][] inLikes = new int[1024][];
+        private int[] inSizes = new int[1024];
+
+        boolean likes(String likerId, String targetId) {
+            Integer liker = nodeById.get(likerId);
+            Integer target = nodeById.get(targetId);
+            return liker != null && target != null
+                    && Arrays.binarySearch(outLikes[liker], 0, outSizes[liker], target) >= 0;
+        }
+
+        List<String> likers(String tenantId) {
+            Integer node = nodeById.get(tenantId);
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            List<String> likers = new ArrayList<>(inSizes[node]);
+            for (int i = 0; i < inSizes[node]; i++) {
+                likers.add(idByNode[inLikes[node][i]]);
+            }
+            return likers;
+        }
+
+        /**
+         * @return false if the like was already recorded
+         */
+        boolean addEdge(String likerId, String targetId) {
+            int liker = nodeOf(likerId);
+            int target = nodeOf(targetId);
+
+            if (!insertSorted(outLikes, outSizes, liker, target)) {
+                return false;
+            }
+            insertSorted(inLikes, inSizes, target, liker);
+            return true;
+        }
+
+        private int nodeOf(String tenantId) {
+            Integer node = nodeById.get(tenantId);
+            if (node != null) {
+                return node;
+            }
+
+            if (nodeCount == idByNode.length) {
+                int capacity = nodeCount * 2;
+                idByNode = Arrays.copyOf(idByNode, capacity);
+                outLikes = Arrays.copyOf(outLikes, capacity);
+                outSizes = Arrays.copyOf(outSizes, capacity);
+                inLikes = Arrays.copyOf(inLikes, capacity);
+                inSizes = Arrays.copyOf(inSizes, capacity);
+            }
+
+            int newNode = nodeCount++;
+            idByNode[newNode] = tenantId;
+            outLikes[newNode] = EMPTY;
+            inLikes[newNode] = EMPTY;
+            nodeById.put(tenantId, newNode);
+            return newNode;
+        }
+
+        /**
+         * Insert a neighbour into a node's sorted array; returns false if already present
+         */
+        private static boolean insertSorted(int[][] adjacency, int[] sizes, int node, int neighbour) {
+            int[] neighbours = adjacency[node];
+            int size = sizes[node];
+
+            int index = Arrays.binarySearch(neighbours, 0, size, neighbour);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+
+            if (size == neighbours.length) {
+                neighbours = Arrays.copyOf(neighbours, Math.max(4, size * 2));
+                adjacency[node] = neighbours;
+            }
+            System.arraycopy(neighbours, index, neighbours, index + 1, size - index);
+            neighbours[index] = neighbour;
+            sizes[node] = size + 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.example.Broomate.repository;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.Swipe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in write-behind buffer for REJECT swipes ({@code broomate.swipes.write-behind.enabled}).
+ *
+ * Swipes are queued in memory and committed as Firestore batches once
+ * {@code batch-size} swipes are waiting or every {@code flush-interval-ms}.
+ * Queued swipes are visible to {@link TenantRepository#findSwipePair} on this node.
+ *
+ * Durability: a buffered swipe is acknowledged before it is stored. Failed batches
+ * are retried, then written one swipe at a time (so one bad swipe cannot sink the
+ * others); only swipes whose own write fails are dropped, with their IDs logged at
+ * error level. The queue is drained on graceful shutdown, but a crash can lose
+ * up to one flush interval of REJECT swipes. That is acceptable for rejects (the
+ * worst case is a profile reappearing in a deck); ACCEPT swipes are never buffered.
+ * When the queue is full, callers fall back to a synchronous write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SwipeWriteBehindBuffer {
+
+    private static final String SWIPES_COLLECTION = "swipes";
+    private static final int MAX_BATCH_WRITES = 500;
+
+    private final Firestore firestore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${broomate.swipes.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${broomate.swipes.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${broomate.swipes.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${broomate.swipes.write-behind.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${broomate.swipes.write-behind.max-retries:3}")
+    private int maxRetries;
+
+    private BlockingQueue<Swipe> queue;
+
+    // swipeId -> swipe, for everything queued or in a batch that is not committed yet
+    private final Map<String, Swipe> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    private Timer flushTimer;
+    private Counter flushedCounter;
+    private Counter failedCounter;
+    private Counter overflowCounter;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        batchSize = Math.min(Math.max(batchSize, 1), MAX_BATCH_WRITES);
+        queue = new ArrayBlockingQueue<>(Math.max(capacity, batchSize));
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "swipe-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("broomate.swipes.write_behind.queue.depth", queue, BlockingQueue::size);
+        flushTimer = Timer.builder("broomate.swipes.write_behind.flush")
+                .description("Latency of write-behind swipe batch commits")
+                .register(meterRegistry);
+        flushedCounter = meterRegistry.counter("broomate.swipes.write_behind.flushed");
+        failedCounter = meterRegistry.counter("broomate.swipes.write_behind.failed");
+        overflowCounter = meterRegistry.counter("broomate.swipes.write_behind.overflow");
+
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Swipe write-behind enabled (capacity {}, batch size {}, flush every {} ms)",
+                capacity, batchSize, flushIntervalMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a swipe for a later batched write
+     * @return false if write-behind is off or the queue is full; the caller must write synchronously
+     */
+    public boolean offer(Swipe swipe) {
+        if (!enabled) {
+            return false;
+        }
+
+        pending.put(swipe.getId(), swipe);
+        if (!queue.offer(swipe)) {
+            pending.remove(swipe.getId(), swipe);
+            overflowCounter.increment();
+            return false;
+        }
+
+        if (queue.size() >= batchSize) {
+            try {
+                flusher.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the final drain picks it up
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A swipe that is buffered but not committed yet, or null
+     */
+    public Swipe findPending(String swipeId) {
+        return enabled ? pending.get(swipeId) : null;
+    }
+
+    /**
+     * Every swipe that is buffered but not committed yet
+     */
+    public List<Swipe> findAllPending() {
+        return enabled ? List.copyOf(pending.values()) : List.of();
+    }
+
+    // ========================================
+    // FLUSHING
+    // ========================================
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Error flushing swipe write-behind queue", e);
+        }
+    }
+
+    /**
+     * Commit everything currently queued, one batch at a time
+     */
+    private synchronized void flush() {
+        List<Swipe> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            commitWithRetry(batch);
+            batch.clear();
+        }
+    }
+
+    private void commitWithRetry(List<Swipe> swipes) {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                WriteBatch writeBatch = firestore.batch();
+                for (Swipe swipe : swipes) {
+                    writeBatch.set(firestore.collection(SWIPES_COLLECTION).document(swipe.getId()), swipe);
+                }
+                writeBatch.commit().get();
+
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                flushedCounter.increment(swipes.size());
+                swipes.forEach(swipe -> pending.remove(swipe.getId(), swipe));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(swipes, e);
+                return;
+            } catch (ExecutionException e) {
+                if (attempt > maxRetries) {
+                    log.warn("Swipe batch commit failed {} times, writing its {} swipes one by one",
+                            attempt, swipes.size());
+                    writeEachSynchronously(swipes);
+                    return;
+                }
+                log.warn("Swipe batch commit failed (attempt {}/{}), retrying", attempt, maxRetries + 1);
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    /**
+     * Last resort for a batch that keeps failing: write every swipe on its own
+     */
+    private void writeEachSynchronously(List<Swipe> swipes) {
+        List<Swipe> failed = new ArrayList<>();
+        Exception lastError = null;
+        for (int i = 0; i < swipes.size(); i++) {
+            Swipe swipe = swipes.get(i);
+            try {
+                firestore.collection(SWIPES_COLLECTION).document(swipe.getId()).set(swipe).get();
+                flushedCounter.increment();
+                pending.remove(swipe.getId(), swipe);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.addAll(swipes.subList(i, swipes.size()));
+                lastError = e;
+                break;
+            } catch (ExecutionException e) {
+                failed.add(swipe);
+                lastError = e;
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            fail(failed, lastError);
+        }
+    }
+
+    private void fail(List<Swipe> swipes, Exception e) {
+        failedCounter.increment(swipes.size());
+        swipes.forEach(swipe -> pending.remove(swipe.getId(), swipe));
+        log.error("Dropping {} buffered swipes after failed commit: {}",
+                swipes.size(), swipes.stream().map(Swipe::getId).toList(), e);
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(Math.min(100L << (attempt - 1), 2000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (!enabled) {
+            return;
+        }
+
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Drain whatever is left on the shutdown thread
+        flush();
+        log.info("Swipe write-behind queue drained");
+    }
+}
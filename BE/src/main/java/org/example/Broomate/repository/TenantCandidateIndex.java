@@ -0,0 +1,405 @@
+package org.example.Broomate.repository;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.Match;
+import org.example.Broomate.model.Swipe;
+import org.example.Broomate.model.Tenant;
+import org.example.Broomate.util.TopKSelector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of swipe-deck candidates.
+ *
+ * Keeps a snapshot of every active tenant (with its ranking features in a
+ * TenantFeatureTable) plus, per tenant, the set of tenants that must never be shown
+ * again (already swiped or matched). The index is loaded from Firestore when the
+ * application is ready (or on first use, if that failed) and then kept up to date
+ * incrementally: by the repositories on signup, profile update, (de)activation, swipe
+ * and match on this node, and by the change feed for tenants, swipes and matches
+ * written on other nodes. Updates made while the load is reading Firestore are
+ * replayed onto the new snapshot before it replaces the old one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TenantCandidateIndex {
+
+    private static final String TENANTS_COLLECTION = "tenants";
+    private static final String SWIPES_COLLECTION = "swipes";
+    private static final String MATCHES_COLLECTION = "matches";
+    private final Firestore firestore;
+    private final SwipeWriteBehindBuffer swipeWriteBehindBuffer;
+    private final FirestoreChangeFeed changeFeed;
+
+    // Current snapshot (null until the first load); replaced and updated under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Snapshot snapshot;
+
+    // Updates made while a build reads Firestore, replayed onto the new snapshot; guarded by the write lock
+    private List<Consumer<Snapshot>> updatesDuringBuild;
+
+    // ========================================
+    // QUERIES
+    // ========================================
+
+    /**
+     * Get up to {@code limit} deck candidates for a tenant, best match first
+     * (compatibility score descending, then tenant ID ascending).
+     *
+     * Pass the score and ID of the last candidate of the previous page to continue
+     * after it, or a null {@code afterTenantId} for the first page. Every active
+     * tenant is scored in a single pass over primitive feature arrays and only the
+     * best {@code limit} are kept in a bounded heap, so nothing is sorted.
+     */
+    public List<ScoredTenant> findCandidates(String tenantId, float afterScore, String afterTenantId, int limit) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            TenantFeatureTable activeTenants = snapshot.activeTenants;
+            Set<String> hidden = snapshot.hiddenByTenant.getOrDefault(tenantId, Collections.emptySet());
+            String[] ids = activeTenants.ids;
+            int viewerSlot = activeTenants.slotOf(tenantId);
+            TopKSelector selector = new TopKSelector(limit, ids);
+
+            for (int slot = 0, end = activeTenants.slotCount(); slot < end; slot++) {
+                if (slot == viewerSlot || ids[slot] == null) {
+                    continue;
+                }
+
+                // Viewers without a profile in the index get a neutral, ID-ordered deck
+                float score = viewerSlot < 0 ? 0f : activeTenants.score(viewerSlot, slot);
+
+                if (afterTenantId != null && !isAfter(score, ids[slot], afterScore, afterTenantId)) {
+                    continue;
+                }
+
+                // Hidden-set lookups are only paid for candidates that would make the page
+                if (!selector.wouldAccept(slot, score) || hidden.contains(ids[slot])) {
+                    continue;
+                }
+                selector.offer(slot, score);
+            }
+
+            float[] scores = new float[selector.size()];
+            int[] slots = selector.drainBestFirst(scores);
+
+            List<ScoredTenant> candidates = new ArrayList<>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                candidates.add(new ScoredTenant(activeTenants.tenants[slots[i]], scores[i]));
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Current state of the given candidates for a tenant's deck, in the same order:
+     * each is scored again, or null if it is no longer active or is hidden from the tenant
+     */
+    public List<ScoredTenant> resolveCandidates(String tenantId, List<String> candidateIds) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            TenantFeatureTable activeTenants = snapshot.activeTenants;
+            Set<String> hidden = snapshot.hiddenByTenant.getOrDefault(tenantId, Collections.emptySet());
+            int viewerSlot = activeTenants.slotOf(tenantId);
+
+            List<ScoredTenant> candidates = new ArrayList<>(candidateIds.size());
+            for (String candidateId : candidateIds) {
+                int slot = activeTenants.slotOf(candidateId);
+                if (slot < 0 || slot == viewerSlot || hidden.contains(candidateId)) {
+                    candidates.add(null);
+                    continue;
+                }
+                float score = viewerSlot < 0 ? 0f : activeTenants.score(viewerSlot, slot);
+                candidates.add(new ScoredTenant(activeTenants.tenants[slot], score));
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether (score, id) comes strictly after the cursor position in deck order
+     */
+    private static boolean isAfter(float score, String id, float afterScore, String afterId) {
+        int byScore = Float.compare(score, afterScore);
+        if (byScore != 0) {
+            return byScore < 0;
+        }
+        return id.compareTo(afterId) > 0;
+    }
+
+    // ========================================
+    // INCREMENTAL UPDATES
+    // ========================================
+
+    /**
+     * Record a written tenant document (signup, profile update, reactivation)
+     */
+    public void onTenantSaved(Tenant tenant) {
+        if (tenant == null || tenant.getId() == null) {
+            return;
+        }
+
+        apply(index -> {
+            if (tenant.isActive()) {
+                index.activeTenants.put(tenant);
+            } else {
+                index.activeTenants.remove(tenant.getId());
+            }
+        });
+    }
+
+    /**
+     * Record an account status change that was written without a full tenant document
+     */
+    public void onTenantStatusChanged(String tenantId, boolean active) {
+        if (!active) {
+            apply(index -> index.activeTenants.remove(tenantId));
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (snapshot != null && snapshot.activeTenants.slotOf(tenantId) >= 0) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Re-read the stored document so the deck shows the full profile
+        Tenant tenant = loadTenant(tenantId);
+        if (tenant != null && tenant.isActive()) {
+            onTenantSaved(tenant);
+        }
+    }
+
+    /**
+     * Hide the swiped tenant from the swiper's deck
+     */
+    public void onSwipe(String swiperId, String targetId) {
+        apply(index -> index.hide(swiperId, targetId));
+    }
+
+    /**
+     * Hide both matched tenants from each other's decks
+     */
+    public void onMatch(String tenant1Id, String tenant2Id) {
+        apply(index -> {
+            index.hide(tenant1Id, tenant2Id);
+            index.hide(tenant2Id, tenant1Id);
+        });
+    }
+
+    /**
+     * Apply tenants, swipes and matches written on any node; re-delivered documents are no-ops
+     */
+    @PostConstruct
+    void subscribeToChanges() {
+        changeFeed.subscribe(TENANTS_COLLECTION, "updatedAt", documents -> {
+            for (QueryDocumentSnapshot doc : documents) {
+                onTenantSaved(doc.toObject(Tenant.class));
+            }
+        });
+        changeFeed.subscribe(SWIPES_COLLECTION, "createdAt", documents -> {
+            for (QueryDocumentSnapshot doc : documents) {
+                Swipe swipe = doc.toObject(Swipe.class);
+                onSwipe(swipe.getSwiperId(), swipe.getTargetId());
+            }
+        });
+        changeFeed.subscribe(MATCHES_COLLECTION, "updatedAt", documents -> {
+            for (QueryDocumentSnapshot doc : documents) {
+                Match match = doc.toObject(Match.class);
+                if (Match.MatchStatusEnum.ACTIVE.equals(match.getStatus())) {
+                    onMatch(match.getTenant1Id(), match.getTenant2Id());
+                }
+            }
+        });
+    }
+
+    /**
+     * Apply an update to the current snapshot, and keep it for the snapshot being built, if any
+     */
+    private void apply(Consumer<Snapshot> update) {
+        lock.writeLock().lock();
+        try {
+            if (updatesDuringBuild != null) {
+                updatesDuringBuild.add(update);
+            }
+            if (snapshot != null) {
+                update.accept(snapshot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========================================
+    // LOADING
+    // ========================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            // Retried lazily on first use
+            log.error("Error building tenant candidate index at startup", e);
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (snapshot != null) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        synchronized (this) {
+            lock.readLock().lock();
+            try {
+                if (snapshot != null) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            build();
+        }
+    }
+
+    /**
+     * Read a new snapshot from Firestore and swap it in; callers hold the monitor
+     */
+    private void build() {
+        lock.writeLock().lock();
+        try {
+            updatesDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Snapshot built = new Snapshot();
+        try {
+            long start = System.currentTimeMillis();
+
+            for (QueryDocumentSnapshot doc : firestore.collection(TENANTS_COLLECTION)
+                    .whereEqualTo("role", "TENANT")
+                    .whereEqualTo("active", true)
+                    .get()
+                    .get()
+                    .getDocuments()) {
+                built.activeTenants.put(doc.toObject(Tenant.class));
+            }
+
+            // REJECTs acknowledged but not yet flushed are not in the collection; read before
+            // the query, so a swipe flushed in between is found by the query instead
+            for (Swipe swipe : swipeWriteBehindBuffer.findAllPending()) {
+                built.hide(swipe.getSwiperId(), swipe.getTargetId());
+            }
+
+            for (QueryDocumentSnapshot doc : firestore.collection(SWIPES_COLLECTION).get().get().getDocuments()) {
+                Swipe swipe = doc.toObject(Swipe.class);
+                built.hide(swipe.getSwiperId(), swipe.getTargetId());
+            }
+
+            for (QueryDocumentSnapshot doc : firestore.collection(MATCHES_COLLECTION)
+                    .whereEqualTo("status", "ACTIVE")
+                    .get()
+                    .get()
+                    .getDocuments()) {
+                Match match = doc.toObject(Match.class);
+                built.hide(match.getTenant1Id(), match.getTenant2Id());
+                built.hide(match.getTenant2Id(), match.getTenant1Id());
+            }
+
+            lock.writeLock().lock();
+            try {
+                updatesDuringBuild.forEach(update -> update.accept(built));
+                snapshot = built;
+            } finally {
+                updatesDuringBuild = null;
+                lock.writeLock().unlock();
+            }
+
+            log.info("Tenant candidate index loaded: {} active tenants in {} ms",
+                    built.activeTenants.size(), System.currentTimeMillis() - start);
+        } catch (InterruptedException | ExecutionException e) {
+            lock.writeLock().lock();
+            try {
+                updatesDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Error loading tenant candidate index", e);
+            throw new RuntimeException("Failed to load tenant candidate index", e);
+        }
+    }
+
+    private Tenant loadTenant(String tenantId) {
+        try {
+            DocumentSnapshot document = firestore.collection(TENANTS_COLLECTION)
+                    .document(tenantId)
+                    .get()
+                    .get();
+
+            return document.exists() ? document.toObject(Tenant.class) : null;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error reloading tenant {} into candidate index", tenantId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Active tenants plus, per tenant, the IDs of tenants hidden from that tenant's deck
+     */
+    private static class Snapshot {
+        private final TenantFeatureTable activeTenants = new TenantFeatureTable();
+        private final Map<String, Set<String>> hiddenByTenant = new ConcurrentHashMap<>();
+
+        void hide(String tenantId, String hiddenTenantId) {
+            if (tenantId == null || hiddenTenantId == null) {
+                return;
+            }
+            hiddenByTenant.computeIfAbsent(tenantId, id -> ConcurrentHashMap.newKeySet()).add(hiddenTenantId);
+        }
+    }
+
+    /**
+     * A deck candidate with its compatibility score for the requesting tenant
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class ScoredTenant {
+        private final Tenant tenant;
+        private final float score;
+    }
+}
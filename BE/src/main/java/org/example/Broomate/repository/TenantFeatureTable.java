@@ -0,0 +1,185 @@
+package org.example.Broomate.repository;
+
+import org.example.Broomate.model.Tenant;
+import org.example.Broomate.util.CompatibilityScorer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column-oriented store of the ranking features of active tenants.
+ *
+ * Every tenant occupies a slot; each feature lives in its own primitive array so a
+ * full scoring pass is a linear scan without object dereferences. Freed slots are
+ * reused. Not thread-safe: TenantCandidateIndex guards all access.
+ */
+final class TenantFeatureTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_DISTRICT_BITS = Long.SIZE;
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final Map<String, Integer> districtBits = new HashMap<>();
+
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+    private int highWaterMark = 0;
+
+    // Columns (indexed by slot)
+    String[] ids = new String[INITIAL_CAPACITY];
+    Tenant[] tenants = new Tenant[INITIAL_CAPACITY];
+    float[] budgets = new float[INITIAL_CAPACITY];
+    long[] districts = new long[INITIAL_CAPACITY];
+    int[] flags = new int[INITIAL_CAPACITY];
+    int[] stayLengths = new int[INITIAL_CAPACITY];
+    int[] moveInDays = new int[INITIAL_CAPACITY];
+
+    /**
+     * Number of slots to scan (occupied or free)
+     */
+    int slotCount() {
+        return highWaterMark;
+    }
+
+    int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Slot of a tenant, or -1 if not present
+     */
+    int slotOf(String tenantId) {
+        Integer slot = slotById.get(tenantId);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Insert or replace a tenant's features
+     */
+    void put(Tenant tenant) {
+        int slot = slotOf(tenant.getId());
+        if (slot < 0) {
+            slot = allocateSlot();
+            slotById.put(tenant.getId(), slot);
+        }
+
+        ids[slot] = tenant.getId();
+        tenants[slot] = tenant;
+        budgets[slot] = tenant.getBudgetPerMonth() == null
+                ? CompatibilityScorer.NO_BUDGET
+                : tenant.getBudgetPerMonth().floatValue();
+        districts[slot] = districtMask(tenant.getPreferredDistricts());
+        flags[slot] = flagsOf(tenant);
+        stayLengths[slot] = tenant.getStayLengthMonths() == null || tenant.getStayLengthMonths() <= 0
+                ? CompatibilityScorer.NO_STAY_LENGTH
+                : tenant.getStayLengthMonths();
+        moveInDays[slot] = moveInDay(tenant.getMoveInDate());
+    }
+
+    void remove(String tenantId) {
+        Integer slot = slotById.remove(tenantId);
+        if (slot == null) {
+            return;
+        }
+
+        // A null ID marks the slot as free for scans
+        ids[slot] = null;
+        tenants[slot] = null;
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Score the tenant in {@code slotB} against the tenant in {@code slotA}
+     */
+    float score(int slotA, int slotB) {
+        return CompatibilityScorer.score(
+                budgets[slotA], districts[slotA], flags[slotA], stayLengths[slotA], moveInDays[slotA],
+                budgets[slotB], districts[slotB], flags[slotB], stayLengths[slotB], moveInDays[slotB]);
+    }
+
+    // ========================================
+    // ENCODING
+    // ========================================
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+
+        if (highWaterMark == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            tenants = Arrays.copyOf(tenants, capacity);
+            budgets = Arrays.copyOf(budgets, capacity);
+            districts = Arrays.copyOf(districts, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            stayLengths = Arrays.copyOf(stayLengths, capacity);
+            moveInDays = Arrays.copyOf(moveInDays, capacity);
+        }
+        return highWaterMark++;
+    }
+
+    /**
+     * Map districts to bits. The first 64 distinct districts get their own bit;
+     * any further ones share bits, which only makes overlap slightly optimistic.
+     */
+    private long districtMask(List<String> preferredDistricts) {
+        if (preferredDistricts == null || preferredDistricts.isEmpty()) {
+            return 0L;
+        }
+
+        long mask = 0L;
+        for (String district : preferredDistricts) {
+            if (district == null || district.isBlank()) {
+                continue;
+            }
+            String key = district.trim().toLowerCase(Locale.ROOT);
+            Integer bit = districtBits.get(key);
+            if (bit == null) {
+                bit = districtBits.size() < MAX_DISTRICT_BITS
+                        ? districtBits.size()
+                        : Math.floorMod(key.hashCode(), MAX_DISTRICT_BITS);
+                districtBits.put(key, bit);
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    private static int flagsOf(Tenant tenant) {
+        int result = 0;
+        if (tenant.isSmoking()) {
+            result |= CompatibilityScorer.FLAG_SMOKING;
+        }
+        if (tenant.isCooking()) {
+            result |= CompatibilityScorer.FLAG_COOKING;
+        }
+        if (tenant.isMightShareBedRoom()) {
+            result |= CompatibilityScorer.FLAG_SHARE_BEDROOM;
+        }
+        if (tenant.isMightShareToilet()) {
+            result |= CompatibilityScorer.FLAG_SHARE_TOILET;
+        }
+        return result;
+    }
+
+    private static int moveInDay(String moveInDate) {
+        if (moveInDate == null || moveInDate.isBlank()) {
+            return CompatibilityScorer.NO_MOVE_IN;
+        }
+        try {
+            return (int) LocalDate.parse(moveInDate.trim()).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return CompatibilityScorer.NO_MOVE_IN;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package org.example.Broomate.repository;
 
+import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.Broomate.model.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -24,6 +29,28 @@ public class TenantRepository {
     private static final String MATCHES_COLLECTION = "matches";
     private static final String CONVERSATIONS_COLLECTION = "conversations";
     private final Firestore firestore;
+    private final TenantCandidateIndex candidateIndex;
+    private final SwipeWriteBehindBuffer swipeWriteBehindBuffer;
+    private final SwipeGraph swipeGraph;
+    private final MatchPartnerCache matchPartnerCache;
+    private final RoomBookmarkerCache roomBookmarkerCache;
+    private final AccountSummaryCache accountSummaryCache;
+    private final PinnedSwipeDecks pinnedSwipeDecks;
+
+    @Value("${broomate.swipe-deck.pinned-size:200}")
+    private int pinnedDeckSize;
+
+    // Also look up swipes stored under random IDs; keep on until the swipe key backfill has run
+    @Value("${broomate.swipes.legacy-fallback:false}")
+    private boolean legacySwipeFallback;
+
+    // Also query matches by tenant1Id / tenant2Id; keep on until the match tenantIds backfill has run
+    @Value("${broomate.matches.legacy-fallback:false}")
+    private boolean legacyMatchFallback;
+
+    // Also match conversations without participantKey by their participant IDs; keep on until the backfill has run
+    @Value("${broomate.conversations.legacy-fallback:false}")
+    private boolean legacyConversationFallback;
 
     // ========================================
     // TENANT CRUD OPERATIONS
@@ -52,23 +79,30 @@ public class TenantRepository {
     }
 
     /**
-     * Find all active tenants with role TENANT
+     * Rank up to {@code broomate.swipe-deck.pinned-size} swipe-deck candidates for a tenant by
+     * compatibility (excluding self, swiped and matched tenants) and pin that order for paging
+     * @param afterScore    pinned score of the last candidate already shown
+     * @param afterTenantId last candidate already shown, or null to rank from the top
      */
-    public List<Tenant> findAllActiveTenants() {
-        try {
-            QuerySnapshot querySnapshot = firestore.collection(TENANTS_COLLECTION)
-                    .whereEqualTo("role", "TENANT")
-                    .whereEqualTo("active", true)
-                    .get()
-                    .get();
+    public PinnedSwipeDecks.PinnedDeck pinSwipeDeck(String tenantId, float afterScore, String afterTenantId) {
+        List<TenantCandidateIndex.ScoredTenant> ranking =
+                candidateIndex.findCandidates(tenantId, afterScore, afterTenantId, pinnedDeckSize);
+        return pinnedSwipeDecks.pin(ranking, ranking.size() == pinnedDeckSize);
+    }
 
-            return querySnapshot.getDocuments().stream()
-                    .map(doc -> doc.toObject(Tenant.class))
-                    .collect(Collectors.toList());
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error finding all active tenants", e);
-            throw new RuntimeException("Failed to find active tenants", e);
-        }
+    /**
+     * A deck pinned on this node, or null if it is gone
+     */
+    public PinnedSwipeDecks.PinnedDeck findPinnedSwipeDeck(String deckId) {
+        return pinnedSwipeDecks.get(deckId);
+    }
+
+    /**
+     * Current profile and score of pinned candidates, in the same order; null for candidates
+     * since swiped, matched or deactivated
+     */
+    public List<TenantCandidateIndex.ScoredTenant> resolveSwipeCandidates(String tenantId, List<String> candidateIds) {
+        return candidateIndex.resolveCandidates(tenantId, candidateIds);
     }
 
     /**
@@ -83,6 +117,8 @@ public class TenantRepository {
                     .set(tenant)
                     .get();
 
+            accountSummaryCache.invalidate(tenantId);
+            candidateIndex.onTenantSaved(tenant);
             return tenant;
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error updating tenant: {}", tenantId, e);
@@ -95,56 +131,124 @@ public class TenantRepository {
     // ========================================
 
     /**
-     * Find all swipes by swiper ID
+     * Deterministic swipe document ID, so each (swiper, target) pair has exactly one document
      */
-    public List<Swipe> findSwipesBySwiperId(String swiperId) {
-        try {
-            QuerySnapshot querySnapshot = firestore.collection(SWIPES_COLLECTION)
-                    .whereEqualTo("swiperId", swiperId)
-                    .get()
-                    .get();
+    public static String swipeId(String swiperId, String targetId) {
+        return swiperId + "_" + targetId;
+    }
 
-            return querySnapshot.getDocuments().stream()
-                    .map(doc -> doc.toObject(Swipe.class))
-                    .collect(Collectors.toList());
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error finding swipes by swiper ID: {}", swiperId, e);
-            throw new RuntimeException("Failed to find swipes", e);
+    /**
+     * A tenant's swipe on a target and the target's swipe back, either of which may be absent
+     */
+    public record SwipePair(Optional<Swipe> swipe, Optional<Swipe> reverse) {
+
+        public boolean likedBack() {
+            return reverse.map(s -> Swipe.SwipeActionEnum.ACCEPT.equals(s.getAction())).orElse(false);
         }
     }
 
     /**
-     * Find swipe by swiper and target
+     * Find the swipe between two tenants in both directions, in one round trip
+     * (a getAll on the deterministic keys, then any legacy queries concurrently)
      */
-    public Optional<Swipe> findSwipe(String swiperId, String targetId) {
+    public SwipePair findSwipePair(String swiperId, String targetId) {
+        String swipeId = swipeId(swiperId, targetId);
+        String reverseId = swipeId(targetId, swiperId);
+        Swipe swipe = swipeWriteBehindBuffer.findPending(swipeId);
+        Swipe reverse = swipeWriteBehindBuffer.findPending(reverseId);
+
         try {
-            QuerySnapshot querySnapshot = firestore.collection(SWIPES_COLLECTION)
-                    .whereEqualTo("swiperId", swiperId)
-                    .whereEqualTo("targetId", targetId)
-                    .get()
-                    .get();
+            if (swipe == null || reverse == null) {
+                CollectionReference swipes = firestore.collection(SWIPES_COLLECTION);
+                for (DocumentSnapshot document : firestore.getAll(
+                        swipes.document(swipeId), swipes.document(reverseId)).get()) {
+                    if (!document.exists()) {
+                        continue;
+                    }
+                    if (swipe == null && swipeId.equals(document.getId())) {
+                        swipe = document.toObject(Swipe.class);
+                    } else if (reverse == null && reverseId.equals(document.getId())) {
+                        reverse = document.toObject(Swipe.class);
+                    }
+                }
+            }
 
-            if (querySnapshot.isEmpty()) {
-                return Optional.empty();
+            if (legacySwipeFallback && (swipe == null || reverse == null)) {
+                ApiFuture<QuerySnapshot> legacySwipe = swipe == null ? findLegacySwipe(swiperId, targetId) : null;
+                ApiFuture<QuerySnapshot> legacyReverse = reverse == null ? findLegacySwipe(targetId, swiperId) : null;
+                if (legacySwipe != null) {
+                    swipe = firstSwipe(legacySwipe.get());
+                }
+                if (legacyReverse != null) {
+                    reverse = firstSwipe(legacyReverse.get());
+                }
             }
 
-            return Optional.of(querySnapshot.getDocuments().get(0).toObject(Swipe.class));
+            return new SwipePair(Optional.ofNullable(swipe), Optional.ofNullable(reverse));
         } catch (InterruptedException | ExecutionException e) {
-            log.error("Error finding swipe between {} and {}", swiperId, targetId, e);
+            log.error("Error finding swipes between {} and {}", swiperId, targetId, e);
             throw new RuntimeException("Failed to find swipe", e);
         }
     }
 
+    /**
+     * Whether both tenants swiped right on each other, called once A's ACCEPT on B is saved.
+     * Answered from the in-memory swipe graph while it is ready (which also sees a like B
+     * saved after the pair was read); until then (startup, or the change feed is failing)
+     * from B's swipe as read by {@link #findSwipePair}
+     */
+    public boolean isMutualLike(String tenantAId, String tenantBId, SwipePair swipePair) {
+        if (swipeGraph.isReady()) {
+            return swipeGraph.isMutual(tenantAId, tenantBId);
+        }
+        return swipePair.likedBack();
+    }
+
+    /**
+     * Find IDs of tenants who swiped right on a tenant (empty until the swipe graph has loaded)
+     */
+    public List<String> findLikerIds(String tenantId) {
+        return swipeGraph.findLikers(tenantId);
+    }
+
+    /**
+     * Query for a swipe stored under a random ID (before the deterministic keys backfill)
+     */
+    private ApiFuture<QuerySnapshot> findLegacySwipe(String swiperId, String targetId) {
+        return firestore.collection(SWIPES_COLLECTION)
+                .whereEqualTo("swiperId", swiperId)
+                .whereEqualTo("targetId", targetId)
+                .limit(1)
+                .get();
+    }
+
+    private static Swipe firstSwipe(QuerySnapshot querySnapshot) {
+        if (querySnapshot.isEmpty()) {
+            return null;
+        }
+        return querySnapshot.getDocuments().get(0).toObject(Swipe.class);
+    }
+
     /**
      * Save swipe
+     * REJECT swipes go through the write-behind buffer when it is enabled and has room
      */
     public Swipe saveSwipe(Swipe swipe) {
+        if (Swipe.SwipeActionEnum.REJECT.equals(swipe.getAction()) && swipeWriteBehindBuffer.offer(swipe)) {
+            candidateIndex.onSwipe(swipe.getSwiperId(), swipe.getTargetId());
+            return swipe;
+        }
+
         try {
             firestore.collection(SWIPES_COLLECTION)
                     .document(swipe.getId())
                     .set(swipe)
                     .get();
 
+            candidateIndex.onSwipe(swipe.getSwiperId(), swipe.getTargetId());
+            if (Swipe.SwipeActionEnum.ACCEPT.equals(swipe.getAction())) {
+                swipeGraph.onLike(swipe.getSwiperId(), swipe.getTargetId());
+            }
             return swipe;
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error saving swipe", e);
@@ -157,54 +261,166 @@ public class TenantRepository {
     // ========================================
 
     /**
-     * Find all active matches for a tenant
+     * Find all active matches for a tenant: one array-contains query, or, while the legacy
+     * fallback is on, the tenant1Id and tenant2Id queries (which also find matches without tenantIds)
      */
     public List<Match> findActiveMatchesByTenantId(String tenantId) {
-        try {
+        List<Match> activeMatches = queryActiveMatches(tenantId);
+        matchPartnerCache.putPartners(tenantId, partnerIdsOf(tenantId, activeMatches));
+        return activeMatches;
+    }
 
-            // Need to query twice since Firestore doesn't support OR on different fields
-            QuerySnapshot matches1 = firestore.collection(MATCHES_COLLECTION)
-                    .whereEqualTo("tenant1Id", tenantId)
-                    .whereEqualTo("status", "ACTIVE")
-                    .get()
-                    .get();
+    /**
+     * Find IDs of a tenant's active match partners (served from the partner cache when possible)
+     */
+    public Set<String> findActiveMatchPartnerIds(String tenantId) {
+        Set<String> partners = matchPartnerCache.getPartners(tenantId);
+        if (partners != null) {
+            return partners;
+        }
+        return matchPartnerCache.putPartners(tenantId, partnerIdsOf(tenantId, queryActiveMatches(tenantId)));
+    }
 
-            QuerySnapshot matches2 = firestore.collection(MATCHES_COLLECTION)
-                    .whereEqualTo("tenant2Id", tenantId)
-                    .whereEqualTo("status", "ACTIVE")
-                    .get()
-                    .get();
+    private List<Match> queryActiveMatches(String tenantId) {
+        matchPartnerCache.beginLoad(tenantId);
+        try {
+            Map<String, Match> matchesById = new LinkedHashMap<>();
+            if (legacyMatchFallback) {
+                ApiFuture<QuerySnapshot> asTenant1 = firestore.collection(MATCHES_COLLECTION)
+                        .whereEqualTo("tenant1Id", tenantId)
+                        .get();
+                ApiFuture<QuerySnapshot> asTenant2 = firestore.collection(MATCHES_COLLECTION)
+                        .whereEqualTo("tenant2Id", tenantId)
+                        .get();
+                addMatches(matchesById, asTenant1.get());
+                addMatches(matchesById, asTenant2.get());
+            } else {
+                addMatches(matchesById, firestore.collection(MATCHES_COLLECTION)
+                        .whereArrayContains("tenantIds", tenantId)
+                        .get()
+                        .get());
+            }
 
-            List<Match> allMatches = matches1.getDocuments().stream()
-                    .map(doc -> doc.toObject(Match.class))
+            return matchesById.values().stream()
+                    .filter(match -> match.getStatus() == Match.MatchStatusEnum.ACTIVE)
                     .collect(Collectors.toList());
-
-            allMatches.addAll(matches2.getDocuments().stream()
-                    .map(doc -> doc.toObject(Match.class))
-                    .collect(Collectors.toList()));
-
-            return allMatches;
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error finding matches for tenant: {}", tenantId, e);
             throw new RuntimeException("Failed to find matches", e);
         }
     }
 
+    private static void addMatches(Map<String, Match> matchesById, QuerySnapshot querySnapshot) {
+        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+            matchesById.putIfAbsent(doc.getId(), doc.toObject(Match.class));
+        }
+    }
+
+    private static Set<String> partnerIdsOf(String tenantId, List<Match> matches) {
+        return matches.stream()
+                .map(match -> tenantId.equals(match.getTenant1Id()) ? match.getTenant2Id() : match.getTenant1Id())
+                .collect(Collectors.toSet());
+    }
+
     /**
-     * Save match
+     * Find the match between two tenants, whatever its status (point read on the pair key)
      */
-    public Match saveMatch(Match match) {
+    public Optional<Match> findMatchBetween(String tenantAId, String tenantBId) {
         try {
-            firestore.collection(MATCHES_COLLECTION)
-                    .document(match.getId())
-                    .set(match)
+            DocumentSnapshot document = firestore.collection(MATCHES_COLLECTION)
+                    .document(Match.pairKeyOf(tenantAId, tenantBId))
+                    .get()
                     .get();
 
-            return match;
+            if (document.exists()) {
+                return Optional.ofNullable(document.toObject(Match.class));
+            }
+            return legacyMatchFallback ? findLegacyMatch(tenantAId, tenantBId) : Optional.empty();
         } catch (InterruptedException | ExecutionException e) {
-            log.error("Error saving match", e);
-            throw new RuntimeException("Failed to save match", e);
+            log.error("Error finding match between {} and {}", tenantAId, tenantBId, e);
+            throw new RuntimeException("Failed to find match", e);
+        }
+    }
+
+    /**
+     * Whether two tenants have an active match
+     * Answered from the partner cache when either tenant is cached, otherwise one point read
+     */
+    public boolean areTenantsMatched(String tenantAId, String tenantBId) {
+        Set<String> partners = matchPartnerCache.getPartners(tenantAId);
+        if (partners != null) {
+            return partners.contains(tenantBId);
+        }
+        partners = matchPartnerCache.getPartners(tenantBId);
+        if (partners != null) {
+            return partners.contains(tenantAId);
+        }
+
+        return findMatchBetween(tenantAId, tenantBId)
+                .map(match -> match.getStatus() == Match.MatchStatusEnum.ACTIVE)
+                .orElse(false);
+    }
+
+    /**
+     * Query for a match stored under a random ID (before the match key backfill), in either tenant order
+     */
+    private Optional<Match> findLegacyMatch(String tenantAId, String tenantBId)
+            throws InterruptedException, ExecutionException {
+        ApiFuture<QuerySnapshot> forward = firestore.collection(MATCHES_COLLECTION)
+                .whereEqualTo("tenant1Id", tenantAId)
+                .whereEqualTo("tenant2Id", tenantBId)
+                .limit(1)
+                .get();
+        ApiFuture<QuerySnapshot> reverse = firestore.collection(MATCHES_COLLECTION)
+                .whereEqualTo("tenant1Id", tenantBId)
+                .whereEqualTo("tenant2Id", tenantAId)
+                .limit(1)
+                .get();
+
+        for (QuerySnapshot querySnapshot : List.of(forward.get(), reverse.get())) {
+            if (!querySnapshot.isEmpty()) {
+                return Optional.of(querySnapshot.getDocuments().get(0).toObject(Match.class));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Create a match together with its conversation, in one batch.
+     * The match is stored under its pair key, so a pair has a single match document:
+     * if the pair already has one, nothing is written and false is returned
+     */
+    public boolean createMatch(Match match, Conversation conversation) {
+        String pairKey = Match.pairKeyOf(match.getTenant1Id(), match.getTenant2Id());
+        match.setId(pairKey);
+        match.setPairKey(pairKey);
+        match.setTenantIds(List.of(match.getTenant1Id(), match.getTenant2Id()));
+        if (conversation.getParticipantIds() != null) {
+            conversation.setParticipantKey(Conversation.participantKeyOf(conversation.getParticipantIds()));
         }
+
+        try {
+            WriteBatch batch = firestore.batch();
+            batch.create(firestore.collection(MATCHES_COLLECTION).document(pairKey), match);
+            batch.set(firestore.collection(CONVERSATIONS_COLLECTION).document(conversation.getId()), conversation);
+            batch.commit().get();
+        } catch (ExecutionException e) {
+            if (EmailDirectory.isAlreadyExists(e)) {
+                log.info("Match {} already exists", pairKey);
+                return false;
+            }
+            log.error("Error creating match {}", pairKey, e);
+            throw new RuntimeException("Failed to create match", e);
+        } catch (InterruptedException e) {
+            log.error("Error creating match {}", pairKey, e);
+            throw new RuntimeException("Failed to create match", e);
+        }
+
+        matchPartnerCache.onMatchSaved(match);
+        if (match.getStatus() == Match.MatchStatusEnum.ACTIVE) {
+            candidateIndex.onMatch(match.getTenant1Id(), match.getTenant2Id());
+        }
+        return true;
     }
 
     // ========================================
@@ -216,6 +432,10 @@ public class TenantRepository {
      */
     public Conversation saveConversation(Conversation conversation) {
         try {
+            if (conversation.getParticipantIds() != null) {
+                conversation.setParticipantKey(Conversation.participantKeyOf(conversation.getParticipantIds()));
+            }
+
             firestore.collection(CONVERSATIONS_COLLECTION)
                     .document(conversation.getId())
                     .set(conversation)
@@ -236,6 +456,7 @@ public class TenantRepository {
         try {
             DocumentReference docRef = firestore.collection("bookmarks").document(bookmark.getId());
             docRef.set(bookmark).get();
+            roomBookmarkerCache.onBookmarkSaved(bookmark.getRoomId(), bookmark.getTenantId());
             log.info("Bookmark saved: {}", bookmark.getId());
             return bookmark;
         } catch (Exception e) {
@@ -290,12 +511,13 @@ public class TenantRepository {
     /**
      * Delete bookmark
      */
-    public void deleteBookmark(String bookmarkId) {
+    public void deleteBookmark(Bookmark bookmark) {
         try {
-            firestore.collection("bookmarks").document(bookmarkId).delete().get();
-            log.info("Bookmark deleted: {}", bookmarkId);
+            firestore.collection("bookmarks").document(bookmark.getId()).delete().get();
+            roomBookmarkerCache.onBookmarkDeleted(bookmark.getRoomId(), bookmark.getTenantId());
+            log.info("Bookmark deleted: {}", bookmark.getId());
         } catch (Exception e) {
-            log.error("Error deleting bookmark: {}", bookmarkId, e);
+            log.error("Error deleting bookmark: {}", bookmark.getId(), e);
             throw new RuntimeException("Failed to delete bookmark", e);
         }
     }
@@ -321,6 +543,24 @@ public class TenantRepository {
      * Find all bookmarks for a specific room
      */
     public List<Bookmark> findBookmarksByRoomId(String roomId) {
+        List<Bookmark> bookmarks = queryBookmarksByRoomId(roomId);
+        roomBookmarkerCache.putBookmarkers(roomId, bookmarkerIdsOf(bookmarks));
+        return bookmarks;
+    }
+
+    /**
+     * Find IDs of tenants who bookmarked a room (served from the bookmarker cache when possible)
+     */
+    public Set<String> findRoomBookmarkerIds(String roomId) {
+        Set<String> bookmarkers = roomBookmarkerCache.getBookmarkers(roomId);
+        if (bookmarkers != null) {
+            return bookmarkers;
+        }
+        return roomBookmarkerCache.putBookmarkers(roomId, bookmarkerIdsOf(queryBookmarksByRoomId(roomId)));
+    }
+
+    private List<Bookmark> queryBookmarksByRoomId(String roomId) {
+        roomBookmarkerCache.beginLoad(roomId);
         try {
             Query query = firestore.collection("bookmarks")
                     .whereEqualTo("roomId", roomId);
@@ -336,39 +576,29 @@ public class TenantRepository {
         }
     }
 
+    private static Set<String> bookmarkerIdsOf(List<Bookmark> bookmarks) {
+        return bookmarks.stream()
+                .map(Bookmark::getTenantId)
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Check if a conversation with specific participants already exists
      * @param participantIds List of participant IDs (order doesn't matter)
      */
     public Optional<Conversation> findConversationByParticipants(List<String> participantIds) {
         try {
-            // Sort IDs to ensure consistent comparison
-            List<String> sortedIds = participantIds.stream()
-                    .sorted()
-                    .collect(Collectors.toList());
-
-            // Query all conversations
+            // Single equality query on the canonical participant key
             QuerySnapshot querySnapshot = firestore.collection(CONVERSATIONS_COLLECTION)
+                    .whereEqualTo("participantKey", Conversation.participantKeyOf(participantIds))
+                    .limit(1)
                     .get()
                     .get();
 
-            // Find conversation with exact matching participants
-            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                Conversation conversation = doc.toObject(Conversation.class);
-                if (conversation != null) {
-                    List<String> conversationParticipants = conversation.getParticipantIds()
-                            .stream()
-                            .sorted()
-                            .collect(Collectors.toList());
-
-                    // Check if participant lists match exactly
-                    if (conversationParticipants.equals(sortedIds)) {
-                        return Optional.of(conversation);
-                    }
-                }
+            if (!querySnapshot.isEmpty()) {
+                return Optional.of(querySnapshot.getDocuments().get(0).toObject(Conversation.class));
             }
-
-            return Optional.empty();
+            return legacyConversationFallback ? findLegacyConversation(participantIds) : Optional.empty();
         } catch (Exception e) {
             log.error("Error finding conversation by participants", e);
             throw new RuntimeException("Failed to find conversation", e);
@@ -376,29 +606,24 @@ public class TenantRepository {
     }
 
     /**
-     * Check if two tenants have an active match
+     * Conversation stored before participantKey existed: one of the participant's
+     * conversations whose participant set is exactly the given one
      */
-    public boolean areTenantsMatched(String tenant1Id, String tenant2Id) {
-        try {
-            // Query for matches where tenant1 and tenant2 are matched
-            QuerySnapshot matches1 = firestore.collection(MATCHES_COLLECTION)
-                    .whereEqualTo("tenant1Id", tenant1Id)
-                    .whereEqualTo("tenant2Id", tenant2Id)
-                    .whereEqualTo("status", "ACTIVE")
-                    .get()
-                    .get();
-
-            QuerySnapshot matches2 = firestore.collection(MATCHES_COLLECTION)
-                    .whereEqualTo("tenant1Id", tenant2Id)
-                    .whereEqualTo("tenant2Id", tenant1Id)
-                    .whereEqualTo("status", "ACTIVE")
-                    .get()
-                    .get();
-
-            return !matches1.isEmpty() || !matches2.isEmpty();
-        } catch (Exception e) {
-            log.error("Error checking if tenants are matched: {} and {}", tenant1Id, tenant2Id, e);
-            throw new RuntimeException("Failed to check tenant match status", e);
+    private Optional<Conversation> findLegacyConversation(List<String> participantIds)
+            throws InterruptedException, ExecutionException {
+        Set<String> wanted = Set.copyOf(participantIds);
+        QuerySnapshot querySnapshot = firestore.collection(CONVERSATIONS_COLLECTION)
+                .whereArrayContains("participantIds", participantIds.get(0))
+                .get()
+                .get();
+
+        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+            Conversation conversation = doc.toObject(Conversation.class);
+            if (conversation != null && conversation.getParticipantIds() != null
+                    && Set.copyOf(conversation.getParticipantIds()).equals(wanted)) {
+                return Optional.of(conversation);
+            }
         }
+        return Optional.empty();
     }
-}
\ No newline at end of file
+}
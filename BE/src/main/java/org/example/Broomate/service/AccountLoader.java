@@ -0,0 +1,72 @@
+package org.example.Broomate.service;
+
+import org.example.Broomate.model.AccountSummary;
+import org.example.Broomate.repository.AllAuthUserRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * DataLoader-style account summary batcher, created per request (not a bean, not thread-safe).
+ *
+ * Callers first {@link #register} every account ID they will need; the first
+ * {@link #get} then loads all pending IDs, deduplicated, from the account summary
+ * cache and, for misses, with one batched read per collection. Later lookups are
+ * served from the loaded map.
+ */
+public final class AccountLoader {
+
+    private final AllAuthUserRepository repository;
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final Map<String, AccountSummary> loaded = new HashMap<>();
+    private final Set<String> missing = new HashSet<>();
+
+    public AccountLoader(AllAuthUserRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Queue IDs for the next batch
+     */
+    public AccountLoader register(Collection<String> userIds) {
+        for (String userId : userIds) {
+            if (userId != null && !loaded.containsKey(userId) && !missing.contains(userId)) {
+                pending.add(userId);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Get an account summary, loading every pending ID first if this one is not known yet
+     */
+    public Optional<AccountSummary> get(String userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        if (!loaded.containsKey(userId) && !missing.contains(userId)) {
+            pending.add(userId);
+            dispatch();
+        }
+        return Optional.ofNullable(loaded.get(userId));
+    }
+
+    private void dispatch() {
+        Map<String, AccountSummary> summaries = repository.findAccountSummariesByIds(pending);
+        for (String userId : pending) {
+            AccountSummary summary = summaries.get(userId);
+            if (summary != null) {
+                loaded.put(userId, summary);
+            } else {
+                missing.add(userId);
+            }
+        }
+        pending.clear();
+    }
+}
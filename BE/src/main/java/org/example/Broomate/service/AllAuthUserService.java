@@ -2,26 +2,31 @@ package org.example.Broomate.service;
 
 import com.google.cloud.Timestamp;
 import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.config.TokenRevocationRegistry;
 import org.example.Broomate.dto.request.allAuthUser.ChangePasswordRequest;
+import org.example.Broomate.dto.request.allAuthUser.MarkAsReadRequest;
 import org.example.Broomate.dto.request.allAuthUser.SendMessageRequest;
 import org.example.Broomate.dto.response.*;
 import org.example.Broomate.dto.response.allAuthUser.*;
 import org.example.Broomate.dto.websocket.NewMessageNotification;
 import org.example.Broomate.model.Account;
+import org.example.Broomate.model.AccountSummary;
 import org.example.Broomate.model.Conversation;
 import org.example.Broomate.model.Message;
 import org.example.Broomate.model.Room;
 import org.example.Broomate.repository.AllAuthUserRepository;
+import org.example.Broomate.util.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -34,13 +39,28 @@ public class AllAuthUserService {
         private AllAuthUserRepository repository;
 
         @Autowired
-        private PasswordEncoder passwordEncoder;
+        private PasswordHashingService passwordHashingService;
 
         @Autowired
         private FileStorageService fileStorageService;
         @Autowired
         private WebSocketService webSocketService;
 
+        @Autowired
+        private MessageSideEffectPipeline messagePipeline;
+
+        @Autowired
+        private ConversationSummaryWriter summaryWriter;
+
+        @Autowired
+        private TokenRevocationRegistry tokenRevocationRegistry;
+
+        @Value("${broomate.messages.page-size:50}")
+        private int messagePageSize;
+
+        private static final int MAX_MESSAGE_PAGE_SIZE = 200;
+        private static final String MESSAGE_CURSOR_VERSION = "msg1";
+
         // ========================================
         // 1. GET ALL CONVERSATIONS (UPDATED)
         // ========================================
@@ -49,9 +69,13 @@ public class AllAuthUserService {
 
                 List<Conversation> conversations = repository.findConversationsByUserId(userId);
 
+                // Collect every participant up front so all accounts load in one batch
+                AccountLoader accountLoader = new AccountLoader(repository);
+                conversations.forEach(conversation -> accountLoader.register(conversation.getParticipantIds()));
+
                 // ✅ UPDATED: Enrich conversations with participant data
                 List<ConversationDetailResponse> conversationResponses = conversations.stream()
-                                .map(conversation -> enrichConversation(conversation, userId))
+                                .map(conversation -> enrichConversation(conversation, userId, accountLoader))
                                 .collect(Collectors.toList());
 
                 log.info("Found {} conversations for user: {}", conversationResponses.size(), userId);
@@ -67,7 +91,8 @@ public class AllAuthUserService {
          * ✅ NEW METHOD: Enrich a conversation with participant data
          */
         // Replace the existing enrichConversation() method (around line 63)
-        private ConversationDetailResponse enrichConversation(Conversation conversation, String currentUserId) {
+        private ConversationDetailResponse enrichConversation(Conversation conversation, String currentUserId,
+                        AccountLoader accountLoader) {
                 int participantCount = conversation.getParticipantIds().size();
                 boolean isThreeWay = participantCount >= 3;
 
@@ -77,7 +102,7 @@ public class AllAuthUserService {
                 List<ConversationDetailResponse.ParticipantInfo> allParticipants = new ArrayList<>();
 
                 for (String participantId : conversation.getParticipantIds()) {
-                        Account participant = repository.findAccountById(participantId).orElse(null);
+                        AccountSummary participant = accountLoader.get(participantId).orElse(null);
 
                         if (participant != null) {
                                 ConversationDetailResponse.ParticipantInfo participantInfo = ConversationDetailResponse.ParticipantInfo
@@ -85,7 +110,7 @@ public class AllAuthUserService {
                                                 .userId(participantId)
                                                 .name(participant.getName())
                                                 .avatarUrl(participant.getAvatarUrl())
-                                                .role(participant.getRole().toString())
+                                                .role(participant.getRole() != null ? participant.getRole().toString() : null)
                                                 .build();
 
                                 allParticipants.add(participantInfo);
@@ -107,7 +132,7 @@ public class AllAuthUserService {
                                         .orElse(null);
 
                         if (otherUserId != null) {
-                                Account otherUser = repository.findAccountById(otherUserId).orElse(null);
+                                AccountSummary otherUser = accountLoader.get(otherUserId).orElse(null);
 
                                 if (otherUser != null) {
                                         otherParticipantId = otherUserId;
@@ -136,7 +161,7 @@ public class AllAuthUserService {
                                 .lastMessageAt(conversation.getLastMessageAt() != null
                                                 ? conversation.getLastMessageAt().toString()
                                                 : null)
-                                .unreadCount(0) // TODO: Calculate actual unread count
+                                .unreadCount(conversation.unreadCountFor(currentUserId))
                                 .allParticipants(allParticipants) // ✅ NOW INCLUDED
                                 .conversationType(conversationType) // ✅ NOW INCLUDED
                                 .createdAt(conversation.getCreatedAt() != null ? conversation.getCreatedAt().toString()
@@ -192,18 +217,22 @@ public class AllAuthUserService {
                                                 HttpStatus.NOT_FOUND,
                                                 "User not found with ID: " + userId));
 
-                if (!passwordEncoder.matches(request.getCurrentPassword(), account.getPassword())) {
+                if (!passwordHashingService.matches(request.getCurrentPassword(), account.getPassword())) {
                         throw new ResponseStatusException(
                                         HttpStatus.BAD_REQUEST,
                                         "Current password is incorrect");
                 }
 
-                String hashedNewPassword = passwordEncoder.encode(request.getNewPassword());
+                String hashedNewPassword = passwordHashingService.encode(request.getNewPassword());
                 account.setPassword(hashedNewPassword);
+                account.setTokenGeneration(account.getTokenGeneration() + 1);
                 account.setUpdatedAt(Timestamp.now());
 
                 repository.updateAccount(userId, account);
 
+                // Sessions holding a token from before the change have to log in again
+                tokenRevocationRegistry.revokeTokensOf(userId, account.getTokenGeneration());
+
                 log.info("Password changed successfully for user: {}", userId);
 
                 return HTTPMessageResponse.builder()
@@ -258,36 +287,23 @@ public class AllAuthUserService {
                                         .updatedAt(Timestamp.now())
                                         .build();
 
+                        // The message write is the only synchronous step; everything below runs
+                        // after it, in order per conversation, on the message pipeline
                         repository.saveMessage(message);
 
-                        conversation.setLastMessage(request.getContent());
-                        conversation.setLastMessageAt(Timestamp.now());
-                        conversation.setUpdatedAt(Timestamp.now());
-                        repository.updateConversation(conversationId, conversation);
+                        // Preview + unread counters, coalesced with other messages of this conversation
+                        List<String> participantIds = conversation.getParticipantIds();
+                        summaryWriter.recordMessage(conversationId, userId, participantIds,
+                                        request.getContent(), message.getCreatedAt());
 
-                        log.info("Message sent successfully in conversation: {}", conversationId);
-                        // ✅ NEW: Send WebSocket notification to the other participant
-                        String otherUserId = conversation.getParticipantIds().stream()
+                        // ✅ Send WebSocket notification to every other participant
+                        List<String> recipientIds = participantIds.stream()
                                         .filter(id -> !id.equals(userId))
-                                        .findFirst()
-                                        .orElse(null);
-
-                        if (otherUserId != null) {
-                                // Get sender info
-                                Account sender = repository.findAccountById(userId).orElse(null);
-
-                                NewMessageNotification notification = NewMessageNotification.builder()
-                                                .messageId(message.getId())
-                                                .conversationId(conversationId)
-                                                .senderId(userId)
-                                                .senderName(sender != null ? sender.getName() : "Unknown User")
-                                                .senderAvatar(sender != null ? sender.getAvatarUrl() : null)
-                                                .content(request.getContent())
-                                                .mediaUrls(mediaUrls)
-                                                .timestamp(message.getCreatedAt().toString())
-                                                .build();
+                                        .toList();
 
-                                webSocketService.sendNewMessageNotification(otherUserId, notification);
+                        if (!recipientIds.isEmpty()) {
+                                messagePipeline.submit(conversationId, "notify",
+                                                () -> notifyNewMessage(message, recipientIds));
                         }
 
                         log.info("Message sent successfully in conversation: {}", conversationId);
@@ -309,6 +325,26 @@ public class AllAuthUserService {
                 }
         }
 
+        private void notifyNewMessage(Message message, List<String> recipientIds) {
+                // Get sender info
+                AccountSummary sender = repository.findAccountSummaryById(message.getSenderId()).orElse(null);
+
+                NewMessageNotification notification = NewMessageNotification.builder()
+                                .messageId(message.getId())
+                                .conversationId(message.getConversationId())
+                                .senderId(message.getSenderId())
+                                .senderName(sender != null ? sender.getName() : "Unknown User")
+                                .senderAvatar(sender != null ? sender.getAvatarUrl() : null)
+                                .content(message.getContent())
+                                .mediaUrls(message.getMediaUrls())
+                                .timestamp(message.getCreatedAt().toString())
+                                .build();
+
+                for (String recipientId : recipientIds) {
+                        webSocketService.sendNewMessageNotification(recipientId, notification);
+                }
+        }
+
         private String determineMediaFolder(MultipartFile file) {
                 String contentType = file.getContentType();
 
@@ -337,10 +373,14 @@ public class AllAuthUserService {
                                                 "User not found with ID: " + userId));
 
                 account.setActive(false);
+                account.setTokenGeneration(account.getTokenGeneration() + 1);
                 account.setUpdatedAt(Timestamp.now());
 
                 repository.updateAccount(userId, account);
 
+                // Logging in again reactivates the account and issues a token of the new generation
+                tokenRevocationRegistry.revokeTokensOf(userId, account.getTokenGeneration());
+
                 log.info("Profile deactivated for user: {}", userId);
 
                 return HTTPMessageResponse.builder()
@@ -374,8 +414,30 @@ public class AllAuthUserService {
         // ========================================
         // 1.5. GET CONVERSATION DETAIL WITH MESSAGES
         // ========================================
-        public ConversationDetailResponse getConversationDetail(String conversationId, String userId) {
-                log.info("Getting conversation detail for ID: {} by user: {}", conversationId, userId);
+        /**
+         * Get a conversation with one page of its messages (oldest first within the page)
+         * Without a cursor the newest page is returned; pages are keyed on (createdAt, message ID)
+         *
+         * @param before cursor from a previous page's olderCursor, to load older messages
+         * @param after  cursor from a previous page's newerCursor, to load newer messages
+         * @param limit  page size (defaults to broomate.messages.page-size, capped at 200)
+         */
+        public ConversationDetailResponse getConversationDetail(String conversationId, String userId,
+                        String before, String after, Integer limit) {
+                log.info("Getting conversation detail for ID: {} by user: {} (before: {}, after: {}, limit: {})",
+                                conversationId, userId, before, after, limit);
+
+                boolean hasBefore = before != null && !before.isBlank();
+                boolean hasAfter = after != null && !after.isBlank();
+                if (hasBefore && hasAfter) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        "Use either 'before' or 'after', not both");
+                }
+
+                int defaultPageSize = messagePageSize > 0 ? messagePageSize : 50;
+                int pageSize = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), MAX_MESSAGE_PAGE_SIZE);
+                List<String> position = hasBefore ? decodeMessageCursor(before)
+                                : hasAfter ? decodeMessageCursor(after) : null;
 
                 // Find conversation
                 Conversation conversation = repository.findConversationById(conversationId)
@@ -389,13 +451,37 @@ public class AllAuthUserService {
                                         "You are not a participant in this conversation");
                 }
 
-                // Get all messages in conversation
-                List<Message> messages = repository.findMessagesByConversationId(conversationId);
+                // Read one page (plus one extra to know whether more exist in that direction)
+                boolean newestFirst = !hasAfter;
+                Timestamp afterCreatedAt = position != null
+                                ? Timestamp.ofTimeSecondsAndNanos(Long.parseLong(position.get(0)),
+                                                Integer.parseInt(position.get(1)))
+                                : null;
+                String afterMessageId = position != null ? position.get(2) : null;
+
+                List<Message> messages = new ArrayList<>(repository.findMessagesPage(
+                                conversationId, afterCreatedAt, afterMessageId, newestFirst, pageSize + 1));
+                boolean hasMore = messages.size() > pageSize;
+                if (hasMore) {
+                        messages = new ArrayList<>(messages.subList(0, pageSize));
+                }
+                if (newestFirst) {
+                        Collections.reverse(messages);
+                }
+
+                boolean hasOlder = hasAfter || hasMore;
+                boolean hasNewer = hasBefore || (hasAfter && hasMore);
+
+                // Resolve participants and the page's distinct senders once (senders who left
+                // the conversation are not participants), then reuse them for every message
+                AccountLoader accountLoader = new AccountLoader(repository)
+                                .register(conversation.getParticipantIds())
+                                .register(messages.stream().map(Message::getSenderId).collect(Collectors.toSet()));
 
                 // ✅ Enrich each message with sender info
                 List<MessageDetailResponse> messageResponses = messages.stream()
                                 .map(message -> {
-                                        Account sender = repository.findAccountById(message.getSenderId()).orElse(null);
+                                        AccountSummary sender = accountLoader.get(message.getSenderId()).orElse(null);
 
                                         String senderName = sender != null ? sender.getName() : "Unknown User";
                                         String senderAvatar = sender != null ? sender.getAvatarUrl() : null;
@@ -411,7 +497,7 @@ public class AllAuthUserService {
                 List<ConversationDetailResponse.ParticipantInfo> allParticipants = new ArrayList<>();
 
                 for (String participantId : conversation.getParticipantIds()) {
-                        Account participant = repository.findAccountById(participantId).orElse(null);
+                        AccountSummary participant = accountLoader.get(participantId).orElse(null);
 
                         if (participant != null) {
                                 ConversationDetailResponse.ParticipantInfo participantInfo = ConversationDetailResponse.ParticipantInfo
@@ -419,7 +505,7 @@ public class AllAuthUserService {
                                                 .userId(participantId)
                                                 .name(participant.getName())
                                                 .avatarUrl(participant.getAvatarUrl())
-                                                .role(participant.getRole().toString()) // "TENANT" or "LANDLORD"
+                                                .role(participant.getRole() != null ? participant.getRole().toString() : null) // "TENANT" or "LANDLORD"
                                                 .build();
 
                                 allParticipants.add(participantInfo);
@@ -434,8 +520,76 @@ public class AllAuthUserService {
                                 allParticipants // ✅ PASS THE LIST
                 );
 
-                log.info("Found {} messages in conversation: {}", messageResponses.size(), conversationId);
+                response.setHasOlder(hasOlder);
+                response.setHasNewer(hasNewer);
+                if (!messages.isEmpty()) {
+                        response.setOlderCursor(hasOlder ? encodeMessageCursor(messages.get(0)) : null);
+                        response.setNewerCursor(encodeMessageCursor(messages.get(messages.size() - 1)));
+                } else if (hasAfter) {
+                        // Nothing newer yet: keep polling from the same position
+                        response.setNewerCursor(after);
+                }
+
+                log.info("Returning {} messages in conversation: {} (hasOlder: {}, hasNewer: {})",
+                                messageResponses.size(), conversationId, hasOlder, hasNewer);
 
                 return response;
         }
+
+        // ========================================
+        // 1.6. MARK CONVERSATION AS READ
+        // ========================================
+        /**
+         * Mark a conversation as read by a participant
+         * Without message IDs the participant's unread count is reset; with message IDs only
+         * those messages are marked read and the count drops by the ones that were still unread
+         */
+        public HTTPMessageResponse markConversationAsRead(String conversationId, String userId,
+                        MarkAsReadRequest request) {
+                log.info("Marking conversation {} as read by user: {}", conversationId, userId);
+
+                Conversation conversation = repository.findConversationById(conversationId)
+                                .orElseThrow(() -> new ResponseStatusException(
+                                                HttpStatus.NOT_FOUND,
+                                                "Conversation not found with ID: " + conversationId));
+
+                if (!conversation.getParticipantIds().contains(userId)) {
+                        throw new ResponseStatusException(
+                                        HttpStatus.FORBIDDEN,
+                                        "You are not a participant in this conversation");
+                }
+
+                if (request == null || request.getMessageIds() == null || request.getMessageIds().isEmpty()) {
+                        // Reset runs behind any in-flight summary write of this conversation
+                        summaryWriter.markRead(conversationId, userId);
+                } else {
+                        // Decrement runs behind the pending summary write that counted these messages
+                        summaryWriter.markMessagesRead(conversationId, userId, request.getMessageIds());
+                }
+
+                return HTTPMessageResponse.builder()
+                                .message("Conversation marked as read")
+                                .build();
+        }
+
+        private static String encodeMessageCursor(Message message) {
+                return CursorUtil.encode(MESSAGE_CURSOR_VERSION,
+                                Long.toString(message.getCreatedAt().getSeconds()),
+                                Integer.toString(message.getCreatedAt().getNanos()),
+                                message.getId());
+        }
+
+        /**
+         * Decode a message cursor into [seconds, nanos, message ID]
+         */
+        private static List<String> decodeMessageCursor(String cursor) {
+                try {
+                        List<String> position = CursorUtil.decode(MESSAGE_CURSOR_VERSION, cursor, 3);
+                        Timestamp.ofTimeSecondsAndNanos(Long.parseLong(position.get(0)),
+                                        Integer.parseInt(position.get(1)));
+                        return position;
+                } catch (IllegalArgumentException e) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+                }
+        }
 }
\ No newline at end of file
@@ -13,10 +13,6 @@ import org.example.Broomate.model.Landlord;
 import org.example.Broomate.model.Tenant;
 import org.example.Broomate.repository.GuestAuthRepository;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
@@ -30,10 +26,8 @@ import java.util.UUID;
 public class AuthService {
 
     private final GuestAuthRepository authRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
-    private final CustomUserDetailsService userDetailsService;
     private final FileStorageService fileStorageService;
 
     // ========================================
@@ -49,45 +43,56 @@ public class AuthService {
                         "User not found with email: " + request.getEmail()
                 ));
 
-        // 2. ✅ AUTO-REACTIVATE: Instead of blocking, reactivate deactivated accounts
+        // 2. Verify password (on the bounded hashing pool)
+        if (!passwordHashingService.matches(request.getPassword(), account.getPassword())) {
+            throw new ResponseStatusException(
+                    HttpStatus.UNAUTHORIZED,
+                    "Invalid email or password"
+            );
+        }
+
+        boolean accountChanged = false;
+
+        // 3. ✅ AUTO-REACTIVATE: Instead of blocking, reactivate deactivated accounts
         if (!account.isActive()) {
             log.info("Auto-reactivating deactivated account for user: {}", account.getId());
             account.setActive(true);
+            accountChanged = true;
+        }
+
+        // 4. Re-hash with the configured BCrypt cost if it changed since the password was set
+        if (passwordHashingService.needsRehash(account.getPassword())) {
+            try {
+                account.setPassword(passwordHashingService.encode(request.getPassword()));
+                accountChanged = true;
+                log.info("Password re-hashed with current cost for user: {}", account.getId());
+            } catch (ResponseStatusException e) {
+                log.warn("Skipping password re-hash for user {}: {}", account.getId(), e.getReason());
+            }
+        }
+
+        if (accountChanged) {
             account.setUpdatedAt(Timestamp.now());
-            
+
             // Save the updated account based on role
             if (account.getRole() == Account.AccountRoleEnum.TENANT) {
                 authRepository.saveTenant((Tenant) account);
             } else if (account.getRole() == Account.AccountRoleEnum.LANDLORD) {
                 authRepository.saveLandlord((Landlord) account);
             }
-            
-            log.info("Account reactivated successfully for user: {}", account.getId());
-        }
-
-        // 3. Authenticate with Spring Security
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-            );
-        } catch (Exception e) {
-            throw new ResponseStatusException(
-                    HttpStatus.UNAUTHORIZED,
-                    "Invalid email or password"
-            );
         }
 
-        // 4. Load user details and generate JWT
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
+        // 5. Generate JWT
         String jwt = jwtUtil.generateToken(
                 account.getEmail(),
                 account.getId(),
-                account.getRole().toString()
+                account.getRole().toString(),
+                account.getTokenGeneration()
         );
 
         log.info("Login successful for email: {}", request.getEmail());
 
-        // 5. Return response with token
+        // 6. Return response with token
         return AuthResponse.builder()
                 .token(jwt)
                 .userId(account.getId())
@@ -130,7 +135,7 @@ public class AuthService {
             }
 
             // 4. Hash password
-            String hashedPassword = passwordEncoder.encode(request.getPassword());
+            String hashedPassword = passwordHashingService.encode(request.getPassword());
 
             // 5. Create Tenant with all preferences
             String userId = UUID.randomUUID().toString();
@@ -161,14 +166,20 @@ public class AuthService {
                     .updatedAt(Timestamp.now())
                     .build();
 
-            Account account = authRepository.saveTenant(tenant);
+            // Atomic create-if-absent on the email directory; a concurrent signup may have taken it
+            Account account = authRepository.createTenant(tenant)
+                    .orElseThrow(() -> new ResponseStatusException(
+                            HttpStatus.CONFLICT,
+                            "Email already registered: " + request.getEmail()
+                    ));
             log.info("Tenant account created: {}", userId);
 
             // 6. Generate JWT token
             String jwt = jwtUtil.generateToken(
                     account.getEmail(),
                     account.getId(),
-                    account.getRole().toString()
+                    account.getRole().toString(),
+                    account.getTokenGeneration()
             );
 
             log.info("Tenant signup successful for email: {}", request.getEmail());
@@ -232,7 +243,7 @@ public class AuthService {
             }
 
             // 4. Hash password
-            String hashedPassword = passwordEncoder.encode(request.getPassword());
+            String hashedPassword = passwordHashingService.encode(request.getPassword());
 
             // 5. Create Landlord
             String userId = UUID.randomUUID().toString();
@@ -250,14 +261,20 @@ public class AuthService {
                     .updatedAt(Timestamp.now())
                     .build();
 
-            Account account = authRepository.saveLandlord(landlord);
+            // Atomic create-if-absent on the email directory; a concurrent signup may have taken it
+            Account account = authRepository.createLandlord(landlord)
+                    .orElseThrow(() -> new ResponseStatusException(
+                            HttpStatus.CONFLICT,
+                            "Email already registered: " + request.getEmail()
+                    ));
             log.info("Landlord account created: {}", userId);
 
             // 6. Generate JWT token
             String jwt = jwtUtil.generateToken(
                     account.getEmail(),
                     account.getId(),
-                    account.getRole().toString()
+                    account.getRole().toString(),
+                    account.getTokenGeneration()
             );
 
             log.info("Landlord signup successful for email: {}", request.getEmail());
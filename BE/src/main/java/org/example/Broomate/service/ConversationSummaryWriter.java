@@ -0,0 +1,279 @@
+package org.example.Broomate.service;
+
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.repository.AllAuthUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces conversation summary updates (last message preview and unread counts)
+ * so a busy chat writes its conversation document at most about once per
+ * {@code broomate.messages.summary.coalesce-window-ms} instead of once per message.
+ *
+ * Updates for a conversation are merged into one {@link PendingSummary} while it
+ * waits; the write then runs on that conversation's {@link MessageSideEffectPipeline}
+ * lane, so summary writes of one conversation never overlap or land out of order.
+ * A failed write is merged back in front of newer updates and retried.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationSummaryWriter {
+
+    private static final int MAX_WRITE_ATTEMPTS = 4;
+
+    private final AllAuthUserRepository repository;
+    private final MessageSideEffectPipeline messagePipeline;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${broomate.messages.summary.coalesce-window-ms:250}")
+    private long coalesceWindowMs;
+
+    private final Map<String, PendingSummary> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private Counter recordedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversation-summary-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("broomate.messages.summary.pending", pending, Map::size);
+        recordedCounter = meterRegistry.counter("broomate.messages.summary.recorded");
+        writtenCounter = meterRegistry.counter("broomate.messages.summary.written");
+        failedCounter = meterRegistry.counter("broomate.messages.summary.failed");
+    }
+
+    /**
+     * Record a new message: preview, one more unread message for every other participant,
+     * and a zero count for the sender
+     */
+    public void recordMessage(String conversationId, String senderId, Collection<String> participantIds,
+                              String content, Timestamp sentAt) {
+        recordedCounter.increment();
+
+        PendingSummary update = new PendingSummary();
+        update.addMessage(senderId, participantIds, content, sentAt);
+        enqueue(conversationId, update);
+    }
+
+    /**
+     * Reset a participant's unread count.
+     *
+     * Updates still waiting get a zero count for the participant, and the stored count is
+     * reset on the conversation's pipeline lane, after any summary write already taken
+     * from {@link #pending}, so that write cannot re-add messages the participant has read
+     */
+    public void markRead(String conversationId, String userId) {
+        pending.computeIfPresent(conversationId, (id, summary) -> {
+            summary.setUnread(userId, 0);
+            return summary;
+        });
+
+        messagePipeline.submit(conversationId, "mark-read",
+                () -> repository.resetUnreadCount(conversationId, userId));
+    }
+
+    /**
+     * Mark specific messages as read by a participant and subtract them from their unread count.
+     *
+     * Runs on the conversation's pipeline lane after writing any pending summary, so the
+     * increments of those messages are stored before they are subtracted and cannot land
+     * afterwards and count them as unread again
+     */
+    public void markMessagesRead(String conversationId, String userId, Collection<String> messageIds) {
+        List<String> ids = List.copyOf(messageIds);
+        messagePipeline.submit(conversationId, "mark-messages-read", () -> {
+            write(conversationId);
+            int remaining = repository.markMessagesRead(conversationId, userId, ids);
+            log.info("User {} has {} unread messages left in conversation: {}", userId, remaining, conversationId);
+        });
+    }
+
+    /**
+     * Merge an update after whatever is pending; only the first update of a window schedules the write
+     */
+    private void enqueue(String conversationId, PendingSummary update) {
+        boolean[] created = {false};
+        pending.compute(conversationId, (id, summary) -> {
+            if (summary == null) {
+                created[0] = true;
+                return update;
+            }
+            summary.absorb(update);
+            return summary;
+        });
+
+        if (created[0]) {
+            scheduleWrite(conversationId, coalesceWindowMs);
+        }
+    }
+
+    private void scheduleWrite(String conversationId, long delayMs) {
+        if (delayMs <= 0) {
+            submitWrite(conversationId);
+            return;
+        }
+
+        try {
+            scheduler.schedule(() -> submitWrite(conversationId), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            submitWrite(conversationId);
+        }
+    }
+
+    private void submitWrite(String conversationId) {
+        messagePipeline.submit(conversationId, "conversation-summary", () -> write(conversationId));
+    }
+
+    private void write(String conversationId) {
+        PendingSummary summary = pending.remove(conversationId);
+        if (summary == null) {
+            return;
+        }
+
+        try {
+            repository.updateConversationSummary(conversationId, summary.getLastMessage(),
+                    summary.getLastMessageAt(), summary.getUnreadValues(), summary.getUnreadIncrements());
+            writtenCounter.increment();
+        } catch (RuntimeException e) {
+            summary.attempts++;
+            if (summary.attempts >= MAX_WRITE_ATTEMPTS) {
+                failedCounter.increment();
+                log.error("Dropping summary update of conversation {} after {} attempts",
+                        conversationId, summary.attempts, e);
+                return;
+            }
+
+            log.warn("Summary update of conversation {} failed (attempt {}/{}), retrying",
+                    conversationId, summary.attempts, MAX_WRITE_ATTEMPTS);
+            requeueFailed(conversationId, summary);
+        }
+    }
+
+    /**
+     * Put a failed update back in front of anything recorded since; if nothing was, schedule its retry
+     */
+    private void requeueFailed(String conversationId, PendingSummary failed) {
+        boolean[] created = {false};
+        pending.compute(conversationId, (id, newer) -> {
+            if (newer == null) {
+                created[0] = true;
+                return failed;
+            }
+            failed.absorb(newer);
+            return failed;
+        });
+
+        if (created[0]) {
+            scheduleWrite(conversationId, Math.max(coalesceWindowMs, 100L << Math.min(failed.attempts, 4)));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+
+        // The pipeline is stopped after this bean and drains what is submitted here
+        List<String> conversationIds = List.copyOf(pending.keySet());
+        conversationIds.forEach(this::submitWrite);
+        log.info("Conversation summary writer flushing {} pending conversations", conversationIds.size());
+    }
+
+    /**
+     * Merged, not yet written summary update of one conversation.
+     *
+     * Unread counts are kept per user either as an absolute value (the user sent a
+     * message or read the conversation, which resets their count) or as an increment;
+     * applying a later update on top keeps the same meaning as applying both in order.
+     */
+    public static final class PendingSummary {
+
+        private String lastMessage;
+        private Timestamp lastMessageAt;
+        private final Map<String, Long> unreadValues = new HashMap<>();
+        private final Map<String, Long> unreadIncrements = new HashMap<>();
+        private int attempts;
+
+        public void addMessage(String senderId, Collection<String> participantIds, String content, Timestamp sentAt) {
+            // Concurrent senders may record out of order; the preview keeps the latest message
+            if (lastMessageAt == null || sentAt.compareTo(lastMessageAt) >= 0) {
+                lastMessage = content;
+                lastMessageAt = sentAt;
+            }
+
+            for (String participantId : participantIds) {
+                if (participantId.equals(senderId)) {
+                    setUnread(participantId, 0);
+                } else {
+                    addUnread(participantId, 1);
+                }
+            }
+        }
+
+        public void setUnread(String userId, long value) {
+            unreadIncrements.remove(userId);
+            unreadValues.put(userId, value);
+        }
+
+        public void addUnread(String userId, long delta) {
+            if (unreadValues.containsKey(userId)) {
+                unreadValues.merge(userId, delta, Long::sum);
+            } else {
+                unreadIncrements.merge(userId, delta, Long::sum);
+            }
+        }
+
+        /**
+         * Apply a later update on top of this one
+         */
+        public void absorb(PendingSummary later) {
+            if (later.lastMessageAt != null
+                    && (lastMessageAt == null || later.lastMessageAt.compareTo(lastMessageAt) >= 0)) {
+                lastMessage = later.lastMessage;
+                lastMessageAt = later.lastMessageAt;
+            }
+            later.unreadValues.forEach(this::setUnread);
+            later.unreadIncrements.forEach(this::addUnread);
+        }
+
+        public String getLastMessage() {
+            return lastMessage;
+        }
+
+        public Timestamp getLastMessageAt() {
+            return lastMessageAt;
+        }
+
+        public Map<String, Long> getUnreadValues() {
+            return Map.copyOf(unreadValues);
+        }
+
+        public Map<String, Long> getUnreadIncrements() {
+            return Map.copyOf(unreadIncrements);
+        }
+    }
+}
@@ -42,7 +42,8 @@ public class CustomUserDetailsService implements UserDetailsService {
                 account.getEmail(),                 // email
                 account.getPassword(),              // password
                 account.getRole(),                  // role (TENANT/LANDLORD)
-                authorities                         // ✅ NOW HAS AUTHORITIES!
+                authorities,                        // ✅ NOW HAS AUTHORITIES!
+                account.getTokenGeneration()
         );
     }
 }
\ No newline at end of file
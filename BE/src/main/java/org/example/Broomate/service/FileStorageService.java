@@ -7,7 +7,6 @@ import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
@@ -31,6 +30,9 @@ public class    FileStorageService {
 
     private final SupabaseConfig supabaseConfig;
     private final FileValidationService fileValidationService;
+
+    // Shared, pooled keep-alive client (StorageHttpClientConfig); never closed here
+    private final CloseableHttpClient storageHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Thread pool for parallel uploads (adjust size based on your needs)
@@ -40,7 +42,7 @@ public class    FileStorageService {
      * Get a signed URL for a file
      */
     public String getSignedUrl(String filePath, int expiresInSeconds) throws IOException {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        try {
             String signUrl = String.format("%s/storage/v1/object/sign/%s/%s",
                     supabaseConfig.getSupabaseUrl(),
                     supabaseConfig.getBucket(),
@@ -57,7 +59,7 @@ public class    FileStorageService {
             String jsonBody = String.format("{\"expiresIn\":%d}", expiresInSeconds);
             signRequest.setEntity(new org.apache.hc.core5.http.io.entity.StringEntity(jsonBody));
 
-            try (CloseableHttpResponse response = httpClient.execute(signRequest)) {
+            try (CloseableHttpResponse response = storageHttpClient.execute(signRequest)) {
                 int statusCode = response.getCode();
                 String responseBody = EntityUtils.toString(response.getEntity());
 
@@ -76,6 +78,20 @@ public class    FileStorageService {
         }
     }
 
+    /**
+     * Response body for error logs ("" if there is none)
+     */
+    private String bodyOf(CloseableHttpResponse response) throws IOException {
+        if (response.getEntity() == null) {
+            return "";
+        }
+        try {
+            return EntityUtils.toString(response.getEntity());
+        } catch (ParseException e) {
+            return "";
+        }
+    }
+
     /**
      * Parse signed URL from Supabase response
      */
@@ -145,39 +161,37 @@ public class    FileStorageService {
         }
         String fileName = folder + "/" + UUID.randomUUID() + extension;
 
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
-                    supabaseConfig.getSupabaseUrl(),
-                    supabaseConfig.getBucket(),
-                    fileName);
+        String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getBucket(),
+                fileName);
 
-            HttpPost uploadRequest = new HttpPost(uploadUrl);
-            uploadRequest.setHeader("Authorization", "Bearer " + supabaseConfig.getServiceRoleKey());
-            uploadRequest.setHeader("apikey", supabaseConfig.getServiceRoleKey());
-            uploadRequest.setHeader("Content-Type", file.getContentType());
+        HttpPost uploadRequest = new HttpPost(uploadUrl);
+        uploadRequest.setHeader("Authorization", "Bearer " + supabaseConfig.getServiceRoleKey());
+        uploadRequest.setHeader("apikey", supabaseConfig.getServiceRoleKey());
+        uploadRequest.setHeader("Content-Type", file.getContentType());
 
-            uploadRequest.setEntity(new org.apache.hc.core5.http.io.entity.ByteArrayEntity(
-                    file.getBytes(),
-                    ContentType.create(file.getContentType())
-            ));
+        uploadRequest.setEntity(new org.apache.hc.core5.http.io.entity.ByteArrayEntity(
+                file.getBytes(),
+                ContentType.create(file.getContentType())
+        ));
 
-            try (CloseableHttpResponse response = httpClient.execute(uploadRequest)) {
-                int statusCode = response.getCode();
+        try (CloseableHttpResponse response = storageHttpClient.execute(uploadRequest)) {
+            int statusCode = response.getCode();
 
-                if (statusCode >= 200 && statusCode < 300) {
-                    // Generate signed URL instead of public URL
-                    String signedUrl = getSignedUrl(fileName, 31536000); // 1 year expiration
-                    log.info("File uploaded successfully: {} -> {}", originalFilename, signedUrl);
-                    return signedUrl;
-                } else {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    log.error("Failed to upload file. Status: {}, Response: {}", statusCode, responseBody);
-                    throw new IOException("Failed to upload file to Supabase");
-                }
-            } catch (ParseException e) {
-                throw new RuntimeException(e);
+            if (statusCode < 200 || statusCode >= 300) {
+                log.error("Failed to upload file. Status: {}, Response: {}", statusCode, bodyOf(response));
+                throw new IOException("Failed to upload file to Supabase");
             }
+
+            // Drain the body so the connection goes back to the pool
+            EntityUtils.consume(response.getEntity());
         }
+
+        // Generate signed URL instead of public URL (after the upload's connection is back in the pool)
+        String signedUrl = getSignedUrl(fileName, 31536000); // 1 year expiration
+        log.info("File uploaded successfully: {} -> {}", originalFilename, signedUrl);
+        return signedUrl;
     }
 
     /**
@@ -245,29 +259,27 @@ public class    FileStorageService {
                 return false;
             }
 
-            try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-                String deleteUrl = String.format("%s/storage/v1/object/%s/%s",
-                        supabaseConfig.getSupabaseUrl(),
-                        supabaseConfig.getBucket(),
-                        filePath);
+            String deleteUrl = String.format("%s/storage/v1/object/%s/%s",
+                    supabaseConfig.getSupabaseUrl(),
+                    supabaseConfig.getBucket(),
+                    filePath);
 
-                HttpDelete deleteRequest = new HttpDelete(deleteUrl);
+            HttpDelete deleteRequest = new HttpDelete(deleteUrl);
 
-                // Set headers with admin service key
-                deleteRequest.setHeader("Authorization", "Bearer " + supabaseConfig.getServiceRoleKey());
-                deleteRequest.setHeader("apikey", supabaseConfig.getServiceRoleKey());
+            // Set headers with admin service key
+            deleteRequest.setHeader("Authorization", "Bearer " + supabaseConfig.getServiceRoleKey());
+            deleteRequest.setHeader("apikey", supabaseConfig.getServiceRoleKey());
 
-                try (CloseableHttpResponse response = httpClient.execute(deleteRequest)) {
-                    int statusCode = response.getCode();
+            try (CloseableHttpResponse response = storageHttpClient.execute(deleteRequest)) {
+                int statusCode = response.getCode();
 
-                    if (statusCode >= 200 && statusCode < 300) {
-                        log.info("File deleted from Supabase Storage: {}", filePath);
-                        return true;
-                    } else {
-                        String responseBody = EntityUtils.toString(response.getEntity());
-                        log.warn("Failed to delete file. Status: {}, Response: {}", statusCode, responseBody);
-                        return false;
-                    }
+                if (statusCode >= 200 && statusCode < 300) {
+                    EntityUtils.consume(response.getEntity());
+                    log.info("File deleted from Supabase Storage: {}", filePath);
+                    return true;
+                } else {
+                    log.warn("Failed to delete file. Status: {}, Response: {}", statusCode, bodyOf(response));
+                    return false;
                 }
             }
         } catch (Exception e) {
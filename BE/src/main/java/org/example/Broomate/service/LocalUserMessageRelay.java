@@ -0,0 +1,29 @@
+package org.example.Broomate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-node relay: delivers through this node's simple broker only
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "broomate.websocket.relay", havingValue = "local", matchIfMissing = true)
+public class LocalUserMessageRelay implements UserMessageRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+
+    @Override
+    public void sendToUser(String userId, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(userId, destination, payload);
+    }
+
+    @Override
+    public boolean isUserConnected(String userId) {
+        return userRegistry.getUser(userId) != null;
+    }
+}
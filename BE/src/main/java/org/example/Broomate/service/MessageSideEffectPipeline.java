@@ -0,0 +1,166 @@
+package org.example.Broomate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the side effects of a stored message (conversation summary, notifications)
+ * off the request thread.
+ *
+ * Work is spread over {@code broomate.messages.pipeline.lanes} single-threaded lanes
+ * by conversation ID, so the stages of one conversation run one at a time in
+ * submission order while different conversations proceed in parallel. A failing
+ * stage is retried in place (keeping that order) up to {@code max-retries} times,
+ * then logged and dropped. When a lane's queue is full the stage runs on the
+ * caller's thread instead, which only loses ordering under overload.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageSideEffectPipeline {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${broomate.messages.pipeline.lanes:4}")
+    private int laneCount;
+
+    @Value("${broomate.messages.pipeline.lane-capacity:10000}")
+    private int laneCapacity;
+
+    @Value("${broomate.messages.pipeline.max-retries:3}")
+    private int maxRetries;
+
+    private ThreadPoolExecutor[] lanes;
+
+    private Timer queueWaitTimer;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Counter overflowCounter;
+
+    @PostConstruct
+    void start() {
+        lanes = new ThreadPoolExecutor[Math.max(laneCount, 1)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = "message-pipeline-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(laneCapacity, 1)),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        meterRegistry.gauge("broomate.messages.pipeline.queue.depth", this, MessageSideEffectPipeline::queueDepth);
+        queueWaitTimer = Timer.builder("broomate.messages.pipeline.queue.wait")
+                .description("Time message side effects wait in their lane before running")
+                .register(meterRegistry);
+        retriedCounter = meterRegistry.counter("broomate.messages.pipeline.retried");
+        failedCounter = meterRegistry.counter("broomate.messages.pipeline.failed");
+        overflowCounter = meterRegistry.counter("broomate.messages.pipeline.overflow");
+
+        log.info("Message pipeline started ({} lanes, capacity {} each)", lanes.length, laneCapacity);
+    }
+
+    /**
+     * Queue a stage behind earlier stages of the same conversation
+     *
+     * @param stage short name used in logs and metrics (e.g. "conversation-summary")
+     */
+    public void submit(String conversationId, String stage, Runnable task) {
+        long submittedAt = System.nanoTime();
+        Runnable run = () -> {
+            queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            runWithRetry(conversationId, stage, task);
+        };
+
+        try {
+            lanes[Math.floorMod(conversationId.hashCode(), lanes.length)].execute(run);
+        } catch (RejectedExecutionException e) {
+            overflowCounter.increment();
+            log.warn("Message pipeline lane full or stopped, running '{}' inline for conversation {}",
+                    stage, conversationId);
+            run.run();
+        }
+    }
+
+    private void runWithRetry(String conversationId, String stage, Runnable task) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                task.run();
+                sample.stop(stageTimer(stage, "success"));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt > maxRetries) {
+                    sample.stop(stageTimer(stage, "failure"));
+                    failedCounter.increment();
+                    log.error("Message pipeline stage '{}' failed for conversation {} after {} attempts",
+                            stage, conversationId, attempt, e);
+                    return;
+                }
+
+                retriedCounter.increment();
+                log.warn("Message pipeline stage '{}' failed for conversation {} (attempt {}/{}), retrying",
+                        stage, conversationId, attempt, maxRetries + 1);
+                if (!sleepBeforeRetry(attempt)) {
+                    sample.stop(stageTimer(stage, "failure"));
+                    failedCounter.increment();
+                    return;
+                }
+            }
+        }
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return Timer.builder("broomate.messages.pipeline.stage")
+                .description("Latency of deferred message side effects, including retries")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private boolean sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(Math.min(100L << (attempt - 1), 2000L));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private double queueDepth() {
+        return Arrays.stream(lanes).mapToInt(lane -> lane.getQueue().size()).sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+
+        // Let queued side effects finish on graceful shutdown
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Message pipeline stopped");
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.Broomate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt hashing and verification on a dedicated, bounded pool.
+ *
+ * At most {@code broomate.auth.hashing.threads} hashes run at once and at most
+ * {@code queue-capacity} wait; beyond that, or when a hash is not done within
+ * {@code timeout-ms}, the request fails fast with 503 instead of piling BCrypt work
+ * onto request threads. A hash abandoned on timeout keeps its slot until BCrypt really
+ * finishes (it cannot be interrupted), so admission always reflects the work still
+ * running or queued. Hashes whose cost differs from {@code broomate.auth.bcrypt-strength}
+ * are reported by {@link #needsRehash} so login can replace them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${broomate.auth.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${broomate.auth.hashing.threads:4}")
+    private int threads;
+
+    @Value("${broomate.auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${broomate.auth.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    // One permit per hash running or queued, held until its BCrypt call returns
+    private Semaphore slots;
+    private int slotCount;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        int poolSize = Math.max(threads, 1);
+        slotCount = poolSize + Math.max(queueCapacity, 1);
+        slots = new Semaphore(slotCount);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        meterRegistry.gauge("broomate.auth.hashing.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("broomate.auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("broomate.auth.hashing.in-flight", slots, s -> slotCount - s.availablePermits());
+        rejectedCounter = meterRegistry.counter("broomate.auth.hashing.rejected");
+
+        // One hash at startup, so the log shows what the configured cost costs on this machine
+        long startedAt = System.nanoTime();
+        passwordEncoder.encode("startup-calibration");
+        log.info("Password hashing started ({} threads, queue {}), BCrypt cost {} takes {} ms per hash",
+                poolSize, queueCapacity, bcryptStrength,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    public String encode(String rawPassword) {
+        return run("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True if the stored hash was made with a different BCrypt cost than the configured one
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    private <T> T run(String operation, Callable<T> task) {
+        if (!slots.tryAcquire()) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue full, rejecting {}", operation);
+            throw busy();
+        }
+
+        // Claimed by whichever comes first: the worker starting the hash, or the caller abandoning it
+        AtomicBoolean claimed = new AtomicBoolean();
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    // Abandoned while queued; its slot was already released
+                    return null;
+                }
+                try {
+                    return task.call();
+                } finally {
+                    slots.release();
+                    hashTimer(operation).record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            rejectedCounter.increment();
+            log.warn("Password hashing queue full, rejecting {}", operation);
+            throw busy();
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(claimed);
+            rejectedCounter.increment();
+            log.warn("Password hashing {} not done within {} ms", operation, timeoutMs);
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(claimed);
+            throw busy();
+        } catch (ExecutionException e) {
+            log.error("Error in password hashing {}", operation, e.getCause());
+            throw new RuntimeException("Failed to " + operation + " password", e.getCause());
+        }
+    }
+
+    /**
+     * Give up on a hash: one still queued is skipped and frees its slot now; one already
+     * running keeps its slot until BCrypt returns, since interrupting does not stop it
+     */
+    private void abandon(AtomicBoolean claimed) {
+        if (claimed.compareAndSet(false, true)) {
+            slots.release();
+        }
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("broomate.auth.hashing.duration")
+                .description("Password hashing latency, including time queued")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many sign-in requests, please try again shortly");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
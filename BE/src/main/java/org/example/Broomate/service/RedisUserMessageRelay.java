@@ -0,0 +1,327 @@
+package org.example.Broomate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-node relay over Redis pub/sub.
+ *
+ * Every node keeps, per connected user, a hash {@code broomate:ws:user:{userId}} of
+ * nodeId -> open session count, and subscribes to its own channel
+ * {@code broomate:ws:node:{nodeId}}. A message for a user is delivered locally if the
+ * user has a session here, and published only to the channels of the other nodes
+ * listed in that user's hash.
+ *
+ * Each node also holds a lease {@code broomate:ws:node-alive:{nodeId}} that expires
+ * {@link #NODE_LEASE_TTL} after its last refresh. Routing and presence skip nodes whose
+ * lease is not live, so a crashed node stops counting within one lease; their entries
+ * are left in place (they expire with the user's hash), so a node whose lease only
+ * lapsed, e.g. during a long GC pause, is routed to again once it renews. The heartbeat
+ * that renews the lease also re-adds any missing entry of this node's users and extends
+ * the hash TTLs, so a session outliving {@link #USER_ENTRY_TTL} stays routable. A node
+ * removes its own entries (listed in {@code broomate:ws:node-users:{nodeId}}) on
+ * shutdown and again on startup, for when it restarts with the same configured node ID
+ * after a crash.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "broomate.websocket.relay", havingValue = "redis")
+public class RedisUserMessageRelay implements UserMessageRelay {
+
+    private static final String USER_KEY_PREFIX = "broomate:ws:user:";
+    private static final String NODE_CHANNEL_PREFIX = "broomate:ws:node:";
+    private static final String NODE_ALIVE_KEY_PREFIX = "broomate:ws:node-alive:";
+    private static final String NODE_USERS_KEY_PREFIX = "broomate:ws:node-users:";
+    private static final Duration USER_ENTRY_TTL = Duration.ofHours(24);
+    private static final Duration NODE_LEASE_TTL = Duration.ofSeconds(30);
+    private static final Duration NODE_LEASE_REFRESH = Duration.ofSeconds(10);
+
+    // Decrement this node's session count and remove the field at zero, atomically, so a
+    // session connecting in between is not deleted with it
+    private static final RedisScript<Long> UNREGISTER_SESSION = new DefaultRedisScript<>(
+            "local count = redis.call('HINCRBY', KEYS[1], ARGV[1], -1) "
+                    + "if count <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) end "
+                    + "return count",
+            Long.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${broomate.websocket.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    // sessionId -> userId of sessions open on this node
+    private final Map<String, String> localSessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    void start() {
+        nodeId = configuredNodeId.isBlank() ? UUID.randomUUID().toString() : configuredNodeId;
+
+        // Entries left by a previous run under the same node ID point at sessions that are gone
+        purgeNodeEntries();
+        refreshLease();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-relay-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat,
+                NODE_LEASE_REFRESH.toMillis(), NODE_LEASE_REFRESH.toMillis(), TimeUnit.MILLISECONDS);
+
+        listenerContainer.addMessageListener(this::onRelayedMessage, new ChannelTopic(NODE_CHANNEL_PREFIX + nodeId));
+        log.info("Redis WebSocket relay started on node {}", nodeId);
+    }
+
+    @Override
+    public void sendToUser(String userId, String destination, Object payload) {
+        if (userRegistry.getUser(userId) != null) {
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+        }
+
+        List<String> nodeIds;
+        try {
+            nodeIds = liveRemoteNodes(userId);
+        } catch (DataAccessException e) {
+            log.error("Error looking up WebSocket nodes of user {}", userId, e);
+            return;
+        }
+
+        String envelope = null;
+        for (String remoteNodeId : nodeIds) {
+            try {
+                if (envelope == null) {
+                    envelope = objectMapper.writeValueAsString(new RelayEnvelope(
+                            userId, destination, objectMapper.valueToTree(payload)));
+                }
+                redisTemplate.convertAndSend(NODE_CHANNEL_PREFIX + remoteNodeId, envelope);
+            } catch (JsonProcessingException | DataAccessException e) {
+                log.error("Error relaying {} for user {} to node {}", destination, userId, remoteNodeId, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isUserConnected(String userId) {
+        if (userRegistry.getUser(userId) != null) {
+            return true;
+        }
+
+        try {
+            return !liveRemoteNodes(userId).isEmpty();
+        } catch (DataAccessException e) {
+            log.error("Error checking WebSocket presence of user {}", userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Other nodes listed in the user's hash that still hold a lease
+     */
+    private List<String> liveRemoteNodes(String userId) {
+        String key = USER_KEY_PREFIX + userId;
+        List<String> remoteNodeIds = redisTemplate.opsForHash().keys(key).stream()
+                .map(Object::toString)
+                .filter(id -> !nodeId.equals(id))
+                .toList();
+        if (remoteNodeIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> leases = redisTemplate.opsForValue().multiGet(remoteNodeIds.stream()
+                .map(id -> NODE_ALIVE_KEY_PREFIX + id)
+                .toList());
+
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < remoteNodeIds.size(); i++) {
+            if (leases != null && leases.get(i) != null) {
+                live.add(remoteNodeIds.get(i));
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Deliver a message published by another node to the local sessions of its user
+     */
+    private void onRelayedMessage(Message message, byte[] pattern) {
+        try {
+            RelayEnvelope envelope = objectMapper.readValue(
+                    new String(message.getBody(), StandardCharsets.UTF_8), RelayEnvelope.class);
+            messagingTemplate.convertAndSendToUser(envelope.userId(), envelope.destination(), envelope.payload());
+        } catch (Exception e) {
+            log.error("Error delivering relayed WebSocket message", e);
+        }
+    }
+
+    // ========================================
+    // NODE LEASE
+    // ========================================
+
+    private void heartbeat() {
+        refreshLease();
+        refreshUserEntries();
+    }
+
+    private void refreshLease() {
+        try {
+            redisTemplate.opsForValue().set(NODE_ALIVE_KEY_PREFIX + nodeId, "1", NODE_LEASE_TTL);
+        } catch (DataAccessException e) {
+            log.error("Error refreshing WebSocket relay lease of node {}", nodeId, e);
+        }
+    }
+
+    /**
+     * Re-add this node's entry for every locally connected user if it is missing (the
+     * count is left alone otherwise, so concurrent connects are not overwritten) and
+     * extend the TTLs, in one pipelined round trip
+     */
+    private void refreshUserEntries() {
+        Map<String, Long> sessionsByUser = localSessions.values().stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        if (sessionsByUser.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                    sessionsByUser.forEach((userId, sessions) -> {
+                        String key = USER_KEY_PREFIX + userId;
+                        redis.opsForHash().putIfAbsent(key, nodeId, sessions.toString());
+                        redis.expire(key, USER_ENTRY_TTL);
+                    });
+                    String nodeUsersKey = NODE_USERS_KEY_PREFIX + nodeId;
+                    redis.opsForSet().add(nodeUsersKey, sessionsByUser.keySet().toArray(new String[0]));
+                    redis.expire(nodeUsersKey, USER_ENTRY_TTL);
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.error("Error refreshing WebSocket entries of node {}", nodeId, e);
+        }
+    }
+
+    /**
+     * Remove this node from the hash of every user it registered
+     */
+    private void purgeNodeEntries() {
+        String nodeUsersKey = NODE_USERS_KEY_PREFIX + nodeId;
+        try {
+            Set<String> userIds = redisTemplate.opsForSet().members(nodeUsersKey);
+            if (userIds != null) {
+                for (String userId : userIds) {
+                    redisTemplate.opsForHash().delete(USER_KEY_PREFIX + userId, nodeId);
+                }
+            }
+            redisTemplate.delete(nodeUsersKey);
+        } catch (DataAccessException e) {
+            log.warn("Error removing WebSocket entries of node {}", nodeId, e);
+        }
+    }
+
+    // ========================================
+    // SESSION TRACKING
+    // ========================================
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null || localSessions.putIfAbsent(sessionId, user.getName()) != null) {
+            return;
+        }
+
+        String key = USER_KEY_PREFIX + user.getName();
+        try {
+            redisTemplate.opsForHash().increment(key, nodeId, 1);
+            redisTemplate.expire(key, USER_ENTRY_TTL);
+            redisTemplate.opsForSet().add(NODE_USERS_KEY_PREFIX + nodeId, user.getName());
+            redisTemplate.expire(NODE_USERS_KEY_PREFIX + nodeId, USER_ENTRY_TTL);
+        } catch (DataAccessException e) {
+            log.error("Error registering WebSocket session of user {}", user.getName(), e);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnected(SessionDisconnectEvent event) {
+        String userId = localSessions.remove(event.getSessionId());
+        if (userId == null) {
+            return;
+        }
+
+        String key = USER_KEY_PREFIX + userId;
+        try {
+            redisTemplate.execute(UNREGISTER_SESSION, List.of(key), nodeId);
+        } catch (DataAccessException e) {
+            log.error("Error unregistering WebSocket session of user {}", userId, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+
+        // Sessions of this node are gone with it
+        purgeNodeEntries();
+        try {
+            redisTemplate.delete(NODE_ALIVE_KEY_PREFIX + nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Error releasing WebSocket relay lease of node {}", nodeId, e);
+        }
+        localSessions.clear();
+    }
+
+    record RelayEnvelope(String userId, String destination, JsonNode payload) {
+    }
+}
@@ -11,8 +11,13 @@ import org.example.Broomate.dto.websocket.NewSwipeNotification;  // ✅ ADDED IM
 import org.example.Broomate.dto.websocket.ThreeWayConversationNotification;
 import org.example.Broomate.model.*;
 import org.example.Broomate.repository.AllAuthUserRepository;
+import org.example.Broomate.repository.PinnedSwipeDecks;
+import org.example.Broomate.repository.SwipeGraph;
+import org.example.Broomate.repository.TenantCandidateIndex.ScoredTenant;
 import org.example.Broomate.repository.TenantRepository;
+import org.example.Broomate.util.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -20,8 +25,6 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -37,69 +40,110 @@ public class TenantService {
     @Autowired
     private AllAuthUserRepository allAuthUserRepository;
 
-    private static final int REJECTION_COOLDOWN_MINUTES = 10;
+    private static final int DEFAULT_DECK_PAGE_SIZE = 20;
+    private static final int MAX_DECK_PAGE_SIZE = 50;
+    private static final String DECK_CURSOR_VERSION = "deck3";
 
     // ========================================
     // BUSINESS LOGIC METHODS
     // ========================================
 
     /**
-     * Get all available tenants for swiping
-     * Excludes: current tenant, already matched, recently rejected, already swiped
+     * Get one page of available tenants for swiping, most compatible first
+     * Excludes: current tenant, already matched, already swiped
+     * Served from the in-memory candidate index instead of re-reading tenants, swipes and matches.
+     * The first page pins the deck's order, and later pages walk that pinned order, so a
+     * profile edited mid-deck is neither skipped nor shown twice; candidates swiped, matched
+     * or deactivated since are left out
+     *
+     * @param limit  page size (defaults to 20, capped at 50)
+     * @param cursor opaque cursor from the previous page's nextCursor, or null for the first page
      */
-    public TenantListResponse getAllTenantsForSwiping(String currentTenantId) {
-        log.info("Getting all tenants for swiping. Current tenant ID: {}", currentTenantId);
-
-        // 1. Get all active tenants
-        List<Tenant> allTenants = tenantRepository.findAllActiveTenants();
-
-        // 2. Exclude current tenant
-        List<Tenant> otherTenants = allTenants.stream()
-                .filter(tenant -> !tenant.getId().equals(currentTenantId))
-                .toList();
-
-        // 3. Get swipe history for current tenant
-        List<Swipe> swipeHistory = tenantRepository.findSwipesBySwiperId(currentTenantId);
-
-        // 4. Calculate 10 minutes ago for rejection cooldown
-        Instant tenMinutesAgo = Instant.now().minus(REJECTION_COOLDOWN_MINUTES, ChronoUnit.MINUTES);
-
-        // 5. Get IDs of recently rejected tenants (within last 10 minutes)
-        Set<String> recentlyRejectedIds = swipeHistory.stream()
-                .filter(swipe -> false)
-                .filter(swipe -> swipe.getCreatedAt().toDate().toInstant().isAfter(tenMinutesAgo))
-                .map(Swipe::getTargetId)
-                .collect(Collectors.toSet());
-
-        // 6. Get IDs of all swiped tenants (don't show again)
-        Set<String> allSwipedIds = swipeHistory.stream()
-                .map(Swipe::getTargetId)
-                .collect(Collectors.toSet());
-
-        // 7. Get matched tenant IDs
-        List<Match> matches = tenantRepository.findActiveMatchesByTenantId(currentTenantId);
-        Set<String> matchedTenantIds = matches.stream()
-                .map(match -> match.getTenant1Id().equals(currentTenantId) ?
-                        match.getTenant2Id() : match.getTenant1Id())
-                .collect(Collectors.toSet());
-
-        // 8. Filter available tenants
-        List<Tenant> availableTenants = otherTenants.stream()
-                .filter(tenant -> !recentlyRejectedIds.contains(tenant.getId()))
-                .filter(tenant -> !matchedTenantIds.contains(tenant.getId()))
-                .filter(tenant -> !allSwipedIds.contains(tenant.getId()))
-                .collect(Collectors.toList());
+    public TenantListResponse getAllTenantsForSwiping(String currentTenantId, Integer limit, String cursor) {
+        log.info("Getting tenants for swiping. Current tenant ID: {}, limit: {}, cursor: {}",
+                currentTenantId, limit, cursor);
+
+        // 1. Resolve page size and position: the pinned deck and offset in it, plus the pinned
+        //    score and ID of the last tenant shown, to pin a new deck after it if this one is gone
+        int pageSize = limit == null ? DEFAULT_DECK_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_DECK_PAGE_SIZE);
+        PinnedSwipeDecks.PinnedDeck deck = null;
+        int offset = 0;
+        float lastScore = 0f;
+        String lastTenantId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                List<String> position = CursorUtil.decode(DECK_CURSOR_VERSION, cursor, 4);
+                deck = tenantRepository.findPinnedSwipeDeck(position.get(0));
+                offset = Integer.parseInt(position.get(1));
+                lastScore = Float.intBitsToFloat(Integer.parseUnsignedInt(position.get(2), 16));
+                lastTenantId = position.get(3);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+        if (deck == null || offset < 0 || offset > deck.size()) {
+            deck = tenantRepository.pinSwipeDeck(currentTenantId, lastScore, lastTenantId);
+            offset = 0;
+        }
+
+        // 2. Walk the pinned order, skipping candidates swiped, matched or deactivated since,
+        //    and pinning the next candidates when a full deck runs out. One candidate past the
+        //    page tells whether another page exists, and is where the next page starts
+        List<ScoredTenant> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        while (!hasMore) {
+            if (offset >= deck.size()) {
+                if (!deck.full() || deck.size() == 0) {
+                    break;
+                }
+                deck = tenantRepository.pinSwipeDeck(currentTenantId,
+                        deck.scores()[deck.size() - 1], deck.tenantIds().get(deck.size() - 1));
+                offset = 0;
+                continue;
+            }
+
+            int end = Math.min(deck.size(), offset + pageSize + 1 - page.size());
+            List<ScoredTenant> resolved = tenantRepository.resolveSwipeCandidates(
+                    currentTenantId, deck.tenantIds().subList(offset, end));
+            for (ScoredTenant candidate : resolved) {
+                if (candidate != null) {
+                    if (page.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    page.add(candidate);
+                    lastScore = deck.scores()[offset];
+                    lastTenantId = deck.tenantIds().get(offset);
+                }
+                offset++;
+            }
+        }
 
-        // 9. Convert to response DTOs
-        List<TenantProfileResponse> tenantResponses = availableTenants.stream()
-                .map(TenantProfileResponse::fromTenant)
+        // 3. Convert to response DTOs (scored against the current profiles)
+        List<TenantProfileResponse> tenantResponses = page.stream()
+                .map(candidate -> {
+                    TenantProfileResponse response = TenantProfileResponse.fromTenant(candidate.getTenant());
+                    response.setCompatibilityScore(Math.round(candidate.getScore()));
+                    return response;
+                })
                 .collect(Collectors.toList());
 
-        log.info("Found {} available tenants for swiping", tenantResponses.size());
+        String nextCursor = null;
+        if (hasMore) {
+            nextCursor = CursorUtil.encode(DECK_CURSOR_VERSION,
+                    deck.id(),
+                    Integer.toString(offset),
+                    Integer.toHexString(Float.floatToIntBits(lastScore)),
+                    lastTenantId);
+        }
+
+        log.info("Returning {} tenants for swiping (hasMore: {})", tenantResponses.size(), hasMore);
 
         return TenantListResponse.builder()
                 .tenants(tenantResponses)
                 .totalCount(tenantResponses.size())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
                 .message("Tenants retrieved successfully")
                 .build();
     }
@@ -228,11 +272,11 @@ public class TenantService {
                         "Target tenant not found with ID: " + request.getTargetTenantId()
                 ));
 
-        // 3. Check if already swiped on this tenant
-        Optional<Swipe> existingSwipe = tenantRepository.findSwipe(
+        // 3. Check if already swiped on this tenant (the target's swipe back is read in the same round trip)
+        TenantRepository.SwipePair swipePair = tenantRepository.findSwipePair(
                 swiperTenantId, request.getTargetTenantId());
 
-        if (existingSwipe.isPresent()) {
+        if (swipePair.swipe().isPresent()) {
             throw new ResponseStatusException(
                     HttpStatus.CONFLICT,
                     "You have already swiped on this tenant"
@@ -241,7 +285,7 @@ public class TenantService {
 
         // 4. Create and save swipe
         Swipe swipe = Swipe.builder()
-                .id(UUID.randomUUID().toString())
+                .id(TenantRepository.swipeId(swiperTenantId, request.getTargetTenantId()))
                 .swiperId(swiperTenantId)
                 .targetId(request.getTargetTenantId())
                 .action(request.getSwipeAction())
@@ -264,7 +308,7 @@ public class TenantService {
         }
 
         // ✅ 6. SEND NOTIFICATION: User A swiped right on User B
-        Tenant swiperTenant = tenantRepository.findById(swiperTenantId).orElse(null);
+        AccountSummary swiperTenant = allAuthUserRepository.findAccountSummaryById(swiperTenantId).orElse(null);
         if (swiperTenant != null) {
             NewSwipeNotification swipeNotification = NewSwipeNotification.builder()
                     .swipeId(swipe.getId())
@@ -278,12 +322,12 @@ public class TenantService {
             log.info("✅ Sent swipe notification from {} to {}", swiperTenantId, request.getTargetTenantId());
         }
 
-        // 7. Handle ACCEPT action - check for mutual match
-        Optional<Swipe> mutualSwipe = tenantRepository.findSwipe(
-                request.getTargetTenantId(), swiperTenantId);
+        // 7. Handle ACCEPT action - check for mutual match in the in-memory swipe graph
+        //    (a like saved on another node moments ago is caught by onMutualLikeDiscovered)
+        boolean isMutual = tenantRepository.isMutualLike(swiperTenantId, request.getTargetTenantId(), swipePair);
 
         // 8. No mutual match yet
-        if (mutualSwipe.isEmpty() || !Swipe.SwipeActionEnum.ACCEPT.equals(mutualSwipe.get().getAction())) {
+        if (!isMutual) {
             return SwipeResponse.fromSwipe(
                     swipe,
                     false,
@@ -298,11 +342,35 @@ public class TenantService {
         return createMatchAndConversation(swiperTenantId, targetTenant, swipe);
     }
 
+    /**
+     * Create the match for a mutual like that was completed on another node while this
+     * node's like was in flight, so neither swipe request saw it
+     */
+    @EventListener
+    public void onMutualLikeDiscovered(SwipeGraph.MutualLikeDiscovered event) {
+        Swipe swipe = event.swipe();
+        try {
+            if (tenantRepository.areTenantsMatched(swipe.getSwiperId(), swipe.getTargetId())) {
+                return;
+            }
+
+            Tenant targetTenant = tenantRepository.findById(swipe.getTargetId()).orElse(null);
+            if (targetTenant == null) {
+                return;
+            }
+
+            log.info("Match found between {} and {} from a concurrent like", swipe.getSwiperId(), swipe.getTargetId());
+            createMatchAndConversation(swipe.getSwiperId(), targetTenant, swipe);
+        } catch (RuntimeException e) {
+            log.error("Error creating match between {} and {}", swipe.getSwiperId(), swipe.getTargetId(), e);
+        }
+    }
+
     // ========================================
     // PRIVATE HELPER METHODS
     // ========================================
     private SwipeResponse createMatchAndConversation(String currentTenantId, Tenant targetTenant, Swipe swipe) {
-        // Create conversation
+        // Create match and conversation (one batch; the match is keyed by the tenant pair)
         String conversationId = UUID.randomUUID().toString();
         Conversation conversation = Conversation.builder()
                 .id(conversationId)
@@ -313,12 +381,7 @@ public class TenantService {
                 .updatedAt(Timestamp.now())
                 .build();
 
-        tenantRepository.saveConversation(conversation);
-
-        // Create match
-        String matchId = UUID.randomUUID().toString();
         Match match = Match.builder()
-                .id(matchId)
                 .tenant1Id(currentTenantId)
                 .tenant2Id(targetTenant.getId())
                 .conversationId(conversationId)
@@ -327,10 +390,23 @@ public class TenantService {
                 .updatedAt(Timestamp.now())
                 .build();
 
-        tenantRepository.saveMatch(match);
+        if (!tenantRepository.createMatch(match, conversation)) {
+            // Already matched (e.g. both swipes were handled at the same time): answer with the stored match
+            Match existing = tenantRepository.findMatchBetween(currentTenantId, targetTenant.getId())
+                    .orElseThrow(() -> new ResponseStatusException(
+                            HttpStatus.CONFLICT,
+                            "Match is being created, please retry"
+                    ));
+            return SwipeResponse.fromSwipe(
+                    swipe,
+                    true,
+                    matchResponseOf(existing, targetTenant),
+                    "It's a match! You can now start chatting with " + targetTenant.getName() + "."
+            );
+        }
 
         // ✅ GET CURRENT TENANT INFO FOR NOTIFICATIONS
-        Tenant currentTenant = tenantRepository.findById(currentTenantId).orElse(null);
+        AccountSummary currentTenant = allAuthUserRepository.findAccountSummaryById(currentTenantId).orElse(null);
 
         // ✅ SEND MATCH NOTIFICATION TO CURRENT TENANT
         if (currentTenant != null) {
@@ -360,26 +436,30 @@ public class TenantService {
         webSocketService.sendNewSwipeNotification(targetTenant.getId(), matchNotification2);
         log.info("✅ Sent match notification to target tenant: {}", targetTenant.getId());
 
-        // Build match DTO for response
-        MatchResponse matchResponse = MatchResponse.builder()
-                .matchId(matchId)
-                .conversationId(conversationId)
-                .otherTenantId(targetTenant.getId())
-                .otherTenantName(targetTenant.getName())
-                .otherTenantAvatar(targetTenant.getAvatarUrl())
-                .matchedAt(Timestamp.now().toString())
-                .build();
-
         log.info("Match and conversation created successfully");
 
         return SwipeResponse.fromSwipe(
                 swipe,
                 true,
-                matchResponse,
+                matchResponseOf(match, targetTenant),
                 "It's a match! You can now start chatting with " + targetTenant.getName() + "."
         );
     }
 
+    /**
+     * Match DTO for the swipe response, seen from the tenant who is not {@code otherTenant}
+     */
+    private MatchResponse matchResponseOf(Match match, Tenant otherTenant) {
+        return MatchResponse.builder()
+                .matchId(match.getId())
+                .conversationId(match.getConversationId())
+                .otherTenantId(otherTenant.getId())
+                .otherTenantName(otherTenant.getName())
+                .otherTenantAvatar(otherTenant.getAvatarUrl())
+                .matchedAt(match.getCreatedAt() != null ? match.getCreatedAt().toString() : Timestamp.now().toString())
+                .build();
+    }
+
     // ========================================
     // BOOKMARK ROOM (WITH 3-WAY CONVERSATION LOGIC)
     // ========================================
@@ -424,46 +504,47 @@ public class TenantService {
         log.info("Room bookmarked successfully: {}", roomId);
 
         // ✅ 6. CHECK FOR 3-WAY CONVERSATION LOGIC
-        // Find all bookmarks for this room (excluding current tenant)
-        List<Bookmark> roomBookmarks = tenantRepository.findBookmarksByRoomId(roomId)
-                .stream()
-                .filter(b -> !b.getTenantId().equals(tenantId))
-                .collect(Collectors.toList());
-
-        log.info("Found {} other bookmarks for room {}", roomBookmarks.size(), roomId);
-
-        // 7. Check if any bookmarked tenant is matched with current tenant
-        for (Bookmark otherBookmark : roomBookmarks) {
-            String otherTenantId = otherBookmark.getTenantId();
-
-            // Check if they are matched
-            boolean areMatched = tenantRepository.areTenantsMatched(tenantId, otherTenantId);
-
-            if (areMatched) {
-                log.info("Found matched tenant {} who also bookmarked room {}", otherTenantId, roomId);
-
-                // ✅ Create 3-way conversation
-                ConversationDetailResponse threeWayConversation = createThreeWayConversation(
-                        tenantId,
-                        otherTenantId,
-                        room.getLandlordId(),
-                        roomId
-                );
-
-                // Get matched tenant info
-                Tenant matchedTenant = tenantRepository.findById(otherTenantId).orElse(null);
-                String matchedTenantName = matchedTenant != null ? matchedTenant.getName() : "Unknown Tenant";
-
-                // Return response with 3-way conversation details
-                return BookmarkResponse.fromBookmarkWithThreeWayConversation(
-                        savedBookmark,
-                        threeWayConversation,
-                        otherTenantId,
-                        matchedTenantName
-                );
+        // Intersect the tenant's match partners with the room's bookmarkers (both cached sets),
+        // iterating the smaller set
+        Set<String> matchPartners = tenantRepository.findActiveMatchPartnerIds(tenantId);
+        Set<String> roomBookmarkers = tenantRepository.findRoomBookmarkerIds(roomId);
+
+        Set<String> smaller = matchPartners.size() <= roomBookmarkers.size() ? matchPartners : roomBookmarkers;
+        Set<String> larger = smaller == matchPartners ? roomBookmarkers : matchPartners;
+
+        // 7. Pick a matched tenant who also bookmarked this room (lowest ID, so the choice is stable)
+        String otherTenantId = null;
+        for (String candidateId : smaller) {
+            if (!candidateId.equals(tenantId) && larger.contains(candidateId)
+                    && (otherTenantId == null || candidateId.compareTo(otherTenantId) < 0)) {
+                otherTenantId = candidateId;
             }
         }
 
+        if (otherTenantId != null) {
+            log.info("Found matched tenant {} who also bookmarked room {}", otherTenantId, roomId);
+
+            // ✅ Create 3-way conversation
+            ConversationDetailResponse threeWayConversation = createThreeWayConversation(
+                    tenantId,
+                    otherTenantId,
+                    room.getLandlordId(),
+                    roomId
+            );
+
+            // Get matched tenant info
+            AccountSummary matchedTenant = allAuthUserRepository.findAccountSummaryById(otherTenantId).orElse(null);
+            String matchedTenantName = matchedTenant != null ? matchedTenant.getName() : "Unknown Tenant";
+
+            // Return response with 3-way conversation details
+            return BookmarkResponse.fromBookmarkWithThreeWayConversation(
+                    savedBookmark,
+                    threeWayConversation,
+                    otherTenantId,
+                    matchedTenantName
+            );
+        }
+
         // No 3-way conversation created
         return BookmarkResponse.fromBookmark(savedBookmark);
     }
@@ -529,7 +610,7 @@ public class TenantService {
         List<ThreeWayConversationNotification.ParticipantInfo> participants = new ArrayList<>();
 
         // Tenant 1
-        Tenant tenant1 = tenantRepository.findById(tenant1Id).orElse(null);
+        AccountSummary tenant1 = allAuthUserRepository.findAccountSummaryById(tenant1Id).orElse(null);
         if (tenant1 != null) {
             participants.add(ThreeWayConversationNotification.ParticipantInfo.builder()
                     .userId(tenant1Id)
@@ -540,7 +621,7 @@ public class TenantService {
         }
 
         // Tenant 2
-        Tenant tenant2 = tenantRepository.findById(tenant2Id).orElse(null);
+        AccountSummary tenant2 = allAuthUserRepository.findAccountSummaryById(tenant2Id).orElse(null);
         if (tenant2 != null) {
             participants.add(ThreeWayConversationNotification.ParticipantInfo.builder()
                     .userId(tenant2Id)
@@ -551,7 +632,7 @@ public class TenantService {
         }
 
         // Landlord
-        allAuthUserRepository.findAccountById(landlordId).ifPresent(landlord -> participants.add(ThreeWayConversationNotification.ParticipantInfo.builder()
+        allAuthUserRepository.findAccountSummaryById(landlordId).ifPresent(landlord -> participants.add(ThreeWayConversationNotification.ParticipantInfo.builder()
                 .userId(landlordId)
                 .name(landlord.getName())
                 .avatarUrl(landlord.getAvatarUrl())
@@ -598,7 +679,7 @@ public class TenantService {
         }
 
         // 3. Delete bookmark
-        tenantRepository.deleteBookmark(bookmark.getId());
+        tenantRepository.deleteBookmark(bookmark);
 
         log.info("Room unbookmarked successfully: {}", roomId);
     }
@@ -636,7 +717,7 @@ public class TenantService {
                     // Room might have been deleted
                     log.warn("Room not found for bookmark: {}", bookmark.getRoomId());
                     // Optionally delete orphaned bookmark
-                    tenantRepository.deleteBookmark(bookmark.getId());
+                    tenantRepository.deleteBookmark(bookmark);
                 }
             } catch (Exception e) {
                 log.error("Error fetching room details for bookmark: {}", bookmark.getId(), e);
@@ -0,0 +1,21 @@
+package org.example.Broomate.service;
+
+/**
+ * Delivers STOMP messages to a user's sessions, wherever they are connected.
+ *
+ * Selected by {@code broomate.websocket.relay}: "local" (default) only reaches
+ * sessions on this node; "redis" also routes to the nodes that hold the user's
+ * other sessions.
+ */
+public interface UserMessageRelay {
+
+    /**
+     * Send a payload to a user destination such as "/queue/messages"
+     */
+    void sendToUser(String userId, String destination, Object payload);
+
+    /**
+     * Whether the user has at least one open session on any node
+     */
+    boolean isUserConnected(String userId);
+}
@@ -1,24 +1,41 @@
 package org.example.Broomate.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.Timestamp;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.dto.websocket.InboxReplayNotification;
 import org.example.Broomate.dto.websocket.NewMessageNotification;
 import org.example.Broomate.dto.websocket.NewSwipeNotification;
 import org.example.Broomate.dto.websocket.ThreeWayConversationNotification;
+import org.example.Broomate.model.NotificationInbox;
+import org.example.Broomate.repository.NotificationInboxRepository;
+import org.example.Broomate.util.CursorUtil;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WebSocketService {
 
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+    private static final String INBOX_ACK_CURSOR_VERSION = "inbox2";
+
+    private final UserMessageRelay messageRelay;
     private final SimpMessagingTemplate messagingTemplate;
-    private final SimpUserRegistry userRegistry;
+    private final NotificationInboxRepository inboxRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * Send new message notification to a specific user
@@ -30,22 +47,8 @@ public class WebSocketService {
         log.info("📨 Notification content: {}", notification.getContent());
         log.info("📍 Destination: /user/{}/queue/messages", userId);
 
-        // Check if user is connected
-        boolean isUserConnected = userRegistry.getUser(userId) != null;
-        log.info("🔌 Is user {} connected? {}", userId, isUserConnected);
-
-        if (!isUserConnected) {
-            log.warn("⚠️ User {} is NOT connected to WebSocket!", userId);
-            log.info("📋 Currently connected users: {}", userRegistry.getUserCount());
-        }
-
         try {
-            messagingTemplate.convertAndSendToUser(
-                    userId,
-                    "/queue/messages",
-                    notification
-            );
-            log.info("✅ Message notification sent successfully to user: {}", userId);
+            deliver(userId, "/queue/messages", notification);
         } catch (Exception e) {
             log.error("❌ Failed to send notification to user {}: {}", userId, e.getMessage(), e);
         }
@@ -60,11 +63,7 @@ public class WebSocketService {
 
         log.info("🔔 Sending new swipe notification to user: {}", userId);
 
-        messagingTemplate.convertAndSendToUser(
-                userId,
-                "/queue/swipes",
-                notification
-        );
+        deliver(userId, "/queue/swipes", notification);
     }
 
     /**
@@ -77,8 +76,8 @@ public class WebSocketService {
 
         log.info("🔔 Sending match notification to users: {} and {}", userId1, userId2);
 
-        messagingTemplate.convertAndSendToUser(userId1, "/queue/swipes", notification);
-        messagingTemplate.convertAndSendToUser(userId2, "/queue/swipes", notification);
+        deliver(userId1, "/queue/swipes", notification);
+        deliver(userId2, "/queue/swipes", notification);
     }
 
     /**
@@ -110,20 +109,84 @@ public class WebSocketService {
         // Send to all 3 participants
         for (String participantId : participantIds) {
             try {
-                boolean isConnected = userRegistry.getUser(participantId) != null;
-                log.info("🔌 User {} connected? {}", participantId, isConnected);
-
-                messagingTemplate.convertAndSendToUser(
-                        participantId,
-                        "/queue/conversations", // New queue for conversation-related notifications
-                        notification
-                );
-
-                log.info("✅ 3-way conversation notification sent to user: {}", participantId);
+                deliver(participantId, "/queue/conversations", notification); // Conversation-related notifications
             } catch (Exception e) {
                 log.error("❌ Failed to send 3-way notification to user {}: {}",
                         participantId, e.getMessage(), e);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Push every notification stored while the user was offline, as one frame on /queue/inbox
+     * of the session that just subscribed to it (so the frame is not sent before it can be
+     * received, and the user's other sessions do not get it again).
+     * The inbox is cleared only when the client sends back the frame's ackCursor
+     */
+    public void replayInbox(String userId, String sessionId) {
+        ApiFutures.addCallback(inboxRepository.load(userId), new ApiFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("❌ Failed to load offline notifications for user {}", userId, t);
+            }
+
+            @Override
+            public void onSuccess(List<NotificationInbox.Item> items) {
+                if (items.isEmpty()) {
+                    return;
+                }
+
+                InboxReplayNotification replay = InboxReplayNotification.builder()
+                        .type("INBOX_REPLAY")
+                        .timestamp(Timestamp.now().toString())
+                        .ackCursor(CursorUtil.encode(INBOX_ACK_CURSOR_VERSION,
+                                Long.toString(items.get(items.size() - 1).getSeq())))
+                        .notifications(items.stream()
+                                .map(item -> InboxReplayNotification.ReplayedNotification.builder()
+                                        .destination(item.getDestination())
+                                        .payload(item.getPayload())
+                                        .createdAt(item.getCreatedAt().toString())
+                                        .build())
+                                .toList())
+                        .build();
+
+                SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+                headers.setSessionId(sessionId);
+                headers.setLeaveMutable(true);
+
+                log.info("📬 Replaying {} offline notifications to user: {} (session {})",
+                        items.size(), userId, sessionId);
+                messagingTemplate.convertAndSendToUser(userId, "/queue/inbox", replay, headers.getMessageHeaders());
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Client confirmed it processed a replay: drop the notifications it contained
+     */
+    public void acknowledgeInbox(String userId, String ackCursor) {
+        long upToSeq;
+        try {
+            upToSeq = Long.parseLong(CursorUtil.decode(INBOX_ACK_CURSOR_VERSION, ackCursor, 1).get(0));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Ignoring invalid inbox ack from user {}", userId);
+            return;
+        }
+
+        inboxRepository.acknowledge(userId, upToSeq);
+    }
+
+    /**
+     * Send to a connected user, or keep the notification in their inbox until they reconnect
+     */
+    private void deliver(String userId, String destination, Object notification) {
+        if (messageRelay.isUserConnected(userId)) {
+            messageRelay.sendToUser(userId, destination, notification);
+            log.info("✅ Notification sent to user: {} ({})", userId, destination);
+            return;
+        }
+
+        log.info("📥 User {} is offline, storing notification ({})", userId, destination);
+        inboxRepository.append(userId, destination, objectMapper.convertValue(notification, PAYLOAD_TYPE));
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.Broomate.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded, thread-safe cache with per-entry time-to-live and LRU eviction.
+ *
+ * Entries expire {@code ttlMillis} after they were written; once {@code maxSize}
+ * is reached the least recently used entry is evicted. Hit, miss, eviction and
+ * expiration counts are kept for metrics.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public BoundedTtlCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock time source in milliseconds (for tests)
+     */
+    public BoundedTtlCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true);
+    }
+
+    /**
+     * Cached value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        if (clock.getAsLong() >= entry.expiresAt) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * Store with an expiry no later than {@code expiresAtMillis} (still capped at the TTL)
+     */
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        entries.put(key, new Entry<>(value, Math.min(clock.getAsLong() + ttlMillis, expiresAtMillis)));
+
+        if (entries.size() > maxSize) {
+            evictEldest();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, expirations, entries.size());
+    }
+
+    private void evictEldest() {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+
+        // Prefer dropping an already expired entry among the oldest few
+        for (int scanned = 0; iterator.hasNext() && scanned < 8; scanned++) {
+            if (now >= iterator.next().getValue().expiresAt) {
+                iterator.remove();
+                expirations++;
+                return;
+            }
+        }
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        eldest.next();
+        eldest.remove();
+        evictions++;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Snapshot of cache statistics
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.Broomate.util;
+
+/**
+ * Scores roommate compatibility between two tenants from a compact primitive
+ * feature encoding (no object allocation per comparison).
+ *
+ * Each criterion contributes a similarity in [0, 1] times its weight; unknown
+ * values count as a neutral 0.5. The result is in [0, 100].
+ */
+public final class CompatibilityScorer {
+
+    // Flag bits
+    public static final int FLAG_SMOKING = 1;
+    public static final int FLAG_COOKING = 1 << 1;
+    public static final int FLAG_SHARE_BEDROOM = 1 << 2;
+    public static final int FLAG_SHARE_TOILET = 1 << 3;
+
+    // Missing-value markers
+    public static final float NO_BUDGET = Float.NaN;
+    public static final int NO_STAY_LENGTH = 0;
+    public static final int NO_MOVE_IN = Integer.MIN_VALUE;
+
+    // Weights (sum to 100)
+    private static final float BUDGET_WEIGHT = 25f;
+    private static final float DISTRICT_WEIGHT = 25f;
+    private static final float SMOKING_WEIGHT = 15f;
+    private static final float STAY_LENGTH_WEIGHT = 10f;
+    private static final float MOVE_IN_WEIGHT = 10f;
+    private static final float COOKING_WEIGHT = 5f;
+    private static final float SHARE_BEDROOM_WEIGHT = 5f;
+    private static final float SHARE_TOILET_WEIGHT = 5f;
+
+    // Move-in dates this many days apart (or more) score zero
+    private static final float MOVE_IN_WINDOW_DAYS = 90f;
+
+    private static final float NEUTRAL = 0.5f;
+
+    private CompatibilityScorer() {
+    }
+
+    /**
+     * Score two tenants
+     * @param districtsA bit set of preferred districts (see TenantFeatureTable)
+     * @param moveInA    move-in date as epoch day, or NO_MOVE_IN
+     */
+    public static float score(float budgetA, long districtsA, int flagsA, int stayA, int moveInA,
+                              float budgetB, long districtsB, int flagsB, int stayB, int moveInB) {
+        float score = 0f;
+
+        score += BUDGET_WEIGHT * ratioSimilarity(budgetA, budgetB);
+        score += DISTRICT_WEIGHT * districtSimilarity(districtsA, districtsB);
+        score += SMOKING_WEIGHT * sameFlag(flagsA, flagsB, FLAG_SMOKING);
+        score += STAY_LENGTH_WEIGHT * stayLengthSimilarity(stayA, stayB);
+        score += MOVE_IN_WEIGHT * moveInSimilarity(moveInA, moveInB);
+        score += COOKING_WEIGHT * sameFlag(flagsA, flagsB, FLAG_COOKING);
+        score += SHARE_BEDROOM_WEIGHT * sameFlag(flagsA, flagsB, FLAG_SHARE_BEDROOM);
+        score += SHARE_TOILET_WEIGHT * sameFlag(flagsA, flagsB, FLAG_SHARE_TOILET);
+
+        return score;
+    }
+
+    private static float ratioSimilarity(float a, float b) {
+        if (Float.isNaN(a) || Float.isNaN(b)) {
+            return NEUTRAL;
+        }
+        float max = Math.max(a, b);
+        if (max <= 0f) {
+            return 1f;
+        }
+        return 1f - Math.abs(a - b) / max;
+    }
+
+    private static float districtSimilarity(long a, long b) {
+        if (a == 0L || b == 0L) {
+            return NEUTRAL;
+        }
+        return (float) Long.bitCount(a & b) / Long.bitCount(a | b);
+    }
+
+    private static float stayLengthSimilarity(int a, int b) {
+        if (a == NO_STAY_LENGTH || b == NO_STAY_LENGTH) {
+            return NEUTRAL;
+        }
+        return 1f - (float) Math.abs(a - b) / Math.max(a, b);
+    }
+
+    private static float moveInSimilarity(int a, int b) {
+        if (a == NO_MOVE_IN || b == NO_MOVE_IN) {
+            return NEUTRAL;
+        }
+        return Math.max(0f, 1f - Math.abs((long) a - b) / MOVE_IN_WINDOW_DAYS);
+    }
+
+    private static float sameFlag(int flagsA, int flagsB, int flag) {
+        return (flagsA & flag) == (flagsB & flag) ? 1f : 0f;
+    }
+}
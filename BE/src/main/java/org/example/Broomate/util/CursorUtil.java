@@ -0,0 +1,46 @@
+package org.example.Broomate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes keyset pagination positions as opaque, URL-safe cursor strings.
+ * A cursor is a versioned list of string parts; clients must treat it as a token.
+ */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "\n";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * Encode cursor parts under a version tag (e.g. "deck1")
+     */
+    public static String encode(String version, String... parts) {
+        String raw = version + SEPARATOR + String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor and return its parts (without the version tag)
+     * @throws IllegalArgumentException if the cursor is malformed or has another version
+     */
+    public static List<String> decode(String version, String cursor, int expectedParts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+
+        String[] tokens = raw.split(SEPARATOR, -1);
+        if (tokens.length != expectedParts + 1 || !tokens[0].equals(version)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        return Arrays.asList(tokens).subList(1, tokens.length);
+    }
+}
@@ -0,0 +1,322 @@
+package org.example.Broomate.util;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.Broomate.model.Account;
+import org.example.Broomate.model.Conversation;
+import org.example.Broomate.model.Match;
+import org.example.Broomate.model.Swipe;
+import org.example.Broomate.repository.AccountRoleDirectory;
+import org.example.Broomate.repository.EmailDirectory;
+import org.example.Broomate.repository.TenantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * One-off data migrations for schema changes, run at startup when
+ * {@code broomate.backfill.enabled=true}. Every step is idempotent, so it is safe
+ * to leave enabled for one deploy and turn off afterwards.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataBackfillRunner {
+
+    private static final String SWIPES_COLLECTION = "swipes";
+    private static final String MATCHES_COLLECTION = "matches";
+    private static final String CONVERSATIONS_COLLECTION = "conversations";
+    private static final String ACCOUNT_ROLES_COLLECTION = "accountRoles";
+    private static final String EMAIL_DIRECTORY_COLLECTION = "emailDirectory";
+
+    // Firestore allows 500 writes per batch
+    private static final int MAX_BATCH_WRITES = 400;
+
+    private final Firestore firestore;
+
+    @Value("${broomate.backfill.enabled:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runBackfills() {
+        if (!enabled) {
+            return;
+        }
+
+        runStep("swipe document keys", this::backfillSwipeKeys);
+        runStep("match pair keys", this::backfillMatchPairKeys);
+        runStep("conversation participant keys", this::backfillConversationParticipantKeys);
+        runStep("account role directory", this::backfillAccountRoles);
+        runStep("email directory", this::backfillEmailDirectory);
+    }
+
+    private void runStep(String name, BackfillStep step) {
+        try {
+            long start = System.currentTimeMillis();
+            int updated = step.run();
+            log.info("Backfill '{}' done: {} documents updated in {} ms",
+                    name, updated, System.currentTimeMillis() - start);
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error running backfill '{}'", name, e);
+        }
+    }
+
+    // ========================================
+    // SWIPES
+    // ========================================
+
+    /**
+     * Move swipes stored under random IDs to their deterministic (swiper, target) key.
+     * If a pair already has a keyed document, the legacy duplicate is just deleted.
+     */
+    private int backfillSwipeKeys() throws InterruptedException, ExecutionException {
+        List<QueryDocumentSnapshot> documents = firestore.collection(SWIPES_COLLECTION).get().get().getDocuments();
+
+        Set<String> existingIds = new HashSet<>();
+        for (QueryDocumentSnapshot doc : documents) {
+            existingIds.add(doc.getId());
+        }
+
+        WriteBatch batch = firestore.batch();
+        int batchWrites = 0;
+        int migrated = 0;
+
+        for (QueryDocumentSnapshot doc : documents) {
+            Swipe swipe = doc.toObject(Swipe.class);
+            if (swipe.getSwiperId() == null || swipe.getTargetId() == null) {
+                continue;
+            }
+
+            String swipeId = TenantRepository.swipeId(swipe.getSwiperId(), swipe.getTargetId());
+            if (swipeId.equals(doc.getId())) {
+                continue;
+            }
+
+            if (existingIds.add(swipeId)) {
+                swipe.setId(swipeId);
+                batch.set(firestore.collection(SWIPES_COLLECTION).document(swipeId), swipe);
+                batchWrites++;
+            }
+            batch.delete(doc.getReference());
+            batchWrites++;
+            migrated++;
+
+            if (batchWrites >= MAX_BATCH_WRITES) {
+                batch.commit().get();
+                batch = firestore.batch();
+                batchWrites = 0;
+            }
+        }
+
+        if (batchWrites > 0) {
+            batch.commit().get();
+        }
+        return migrated;
+    }
+
+    // ========================================
+    // MATCHES
+    // ========================================
+
+    /**
+     * Move matches stored under random IDs to their pair key, with pairKey and tenantIds set.
+     * If a pair already has a keyed document, the legacy duplicate is just deleted.
+     */
+    private int backfillMatchPairKeys() throws InterruptedException, ExecutionException {
+        List<QueryDocumentSnapshot> documents = firestore.collection(MATCHES_COLLECTION).get().get().getDocuments();
+
+        Set<String> existingIds = new HashSet<>();
+        for (QueryDocumentSnapshot doc : documents) {
+            existingIds.add(doc.getId());
+        }
+
+        WriteBatch batch = firestore.batch();
+        int batchWrites = 0;
+        int migrated = 0;
+
+        for (QueryDocumentSnapshot doc : documents) {
+            Match match = doc.toObject(Match.class);
+            if (match.getTenant1Id() == null || match.getTenant2Id() == null) {
+                continue;
+            }
+
+            String pairKey = Match.pairKeyOf(match.getTenant1Id(), match.getTenant2Id());
+            if (pairKey.equals(doc.getId()) && pairKey.equals(match.getPairKey()) && match.getTenantIds() != null) {
+                continue;
+            }
+
+            if (pairKey.equals(doc.getId())) {
+                batch.update(doc.getReference(),
+                        "pairKey", pairKey,
+                        "tenantIds", List.of(match.getTenant1Id(), match.getTenant2Id()));
+                batchWrites++;
+            } else {
+                if (existingIds.add(pairKey)) {
+                    match.setId(pairKey);
+                    match.setPairKey(pairKey);
+                    match.setTenantIds(List.of(match.getTenant1Id(), match.getTenant2Id()));
+                    batch.set(firestore.collection(MATCHES_COLLECTION).document(pairKey), match);
+                    batchWrites++;
+                }
+                batch.delete(doc.getReference());
+                batchWrites++;
+            }
+            migrated++;
+
+            if (batchWrites >= MAX_BATCH_WRITES) {
+                batch.commit().get();
+                batch = firestore.batch();
+                batchWrites = 0;
+            }
+        }
+
+        if (batchWrites > 0) {
+            batch.commit().get();
+        }
+        return migrated;
+    }
+
+    // ========================================
+    // CONVERSATIONS
+    // ========================================
+
+    /**
+     * Set participantKey on conversations created before it existed
+     */
+    private int backfillConversationParticipantKeys() throws InterruptedException, ExecutionException {
+        WriteBatch batch = firestore.batch();
+        int batchWrites = 0;
+        int updated = 0;
+
+        for (QueryDocumentSnapshot doc : firestore.collection(CONVERSATIONS_COLLECTION).get().get().getDocuments()) {
+            Conversation conversation = doc.toObject(Conversation.class);
+            if (conversation.getParticipantIds() == null) {
+                continue;
+            }
+
+            String participantKey = Conversation.participantKeyOf(conversation.getParticipantIds());
+            if (participantKey.equals(conversation.getParticipantKey())) {
+                continue;
+            }
+
+            batch.update(doc.getReference(), "participantKey", participantKey);
+            batchWrites++;
+            updated++;
+
+            if (batchWrites >= MAX_BATCH_WRITES) {
+                batch.commit().get();
+                batch = firestore.batch();
+                batchWrites = 0;
+            }
+        }
+
+        if (batchWrites > 0) {
+            batch.commit().get();
+        }
+        return updated;
+    }
+
+    // ========================================
+    // ACCOUNTS
+    // ========================================
+
+    /**
+     * Add every tenant and landlord that has no accountRoles entry yet
+     */
+    private int backfillAccountRoles() throws InterruptedException, ExecutionException {
+        Set<String> knownIds = new HashSet<>();
+        for (QueryDocumentSnapshot doc : firestore.collection(ACCOUNT_ROLES_COLLECTION).get().get().getDocuments()) {
+            knownIds.add(doc.getId());
+        }
+
+        WriteBatch batch = firestore.batch();
+        int batchWrites = 0;
+        int added = 0;
+
+        for (Account.AccountRoleEnum role : Account.AccountRoleEnum.values()) {
+            String collection = AccountRoleDirectory.collectionFor(role);
+            for (QueryDocumentSnapshot doc : firestore.collection(collection).select("role").get().get().getDocuments()) {
+                if (!knownIds.add(doc.getId())) {
+                    continue;
+                }
+
+                batch.set(firestore.collection(ACCOUNT_ROLES_COLLECTION).document(doc.getId()),
+                        Map.of("role", role.name()));
+                batchWrites++;
+                added++;
+
+                if (batchWrites >= MAX_BATCH_WRITES) {
+                    batch.commit().get();
+                    batch = firestore.batch();
+                    batchWrites = 0;
+                }
+            }
+        }
+
+        if (batchWrites > 0) {
+            batch.commit().get();
+        }
+        return added;
+    }
+
+    /**
+     * Add every tenant and landlord email that has no emailDirectory entry yet.
+     * If two accounts share an email, the first one found keeps it.
+     */
+    private int backfillEmailDirectory() throws InterruptedException, ExecutionException {
+        Set<String> knownIds = new HashSet<>();
+        for (QueryDocumentSnapshot doc : firestore.collection(EMAIL_DIRECTORY_COLLECTION).get().get().getDocuments()) {
+            knownIds.add(doc.getId());
+        }
+
+        WriteBatch batch = firestore.batch();
+        int batchWrites = 0;
+        int added = 0;
+
+        for (Account.AccountRoleEnum role : Account.AccountRoleEnum.values()) {
+            String collection = AccountRoleDirectory.collectionFor(role);
+            for (QueryDocumentSnapshot doc : firestore.collection(collection).select("email").get().get().getDocuments()) {
+                String email = EmailDirectory.normalize(doc.getString("email"));
+                if (email == null || email.isEmpty()) {
+                    continue;
+                }
+
+                String entryId = EmailDirectory.documentId(email);
+                if (!knownIds.add(entryId)) {
+                    continue;
+                }
+
+                batch.set(firestore.collection(EMAIL_DIRECTORY_COLLECTION).document(entryId),
+                        Map.of("accountId", doc.getId(), "role", role.name()));
+                batchWrites++;
+                added++;
+
+                if (batchWrites >= MAX_BATCH_WRITES) {
+                    batch.commit().get();
+                    batch = firestore.batch();
+                    batchWrites = 0;
+                }
+            }
+        }
+
+        if (batchWrites > 0) {
+            batch.commit().get();
+        }
+        return added;
+    }
+
+    @FunctionalInterface
+    private interface BackfillStep {
+        int run() throws InterruptedException, ExecutionException;
+    }
+}
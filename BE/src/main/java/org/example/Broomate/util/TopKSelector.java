@@ -0,0 +1,140 @@
+package org.example.Broomate.util;
+
+/**
+ * Keeps the best K (slot, score) pairs seen so far in a bounded binary min-heap
+ * backed by primitive arrays. Ordering is score descending, then ID ascending,
+ * so results are deterministic and usable as a keyset pagination order.
+ */
+public final class TopKSelector {
+
+    private final int capacity;
+    private final String[] ids;
+    private final int[] heapSlots;
+    private final float[] heapScores;
+    private int size = 0;
+
+    /**
+     * @param capacity number of results to keep (K)
+     * @param ids      slot -> ID lookup used to break score ties
+     */
+    public TopKSelector(int capacity, String[] ids) {
+        this.capacity = capacity;
+        this.ids = ids;
+        this.heapSlots = new int[capacity];
+        this.heapScores = new float[capacity];
+    }
+
+    /**
+     * Whether a candidate would currently make it into the top K
+     */
+    public boolean wouldAccept(int slot, float score) {
+        return size < capacity || isBetter(slot, score, heapSlots[0], heapScores[0]);
+    }
+
+    /**
+     * Offer a candidate; returns true if it was kept
+     */
+    public boolean offer(int slot, float score) {
+        if (capacity == 0) {
+            return false;
+        }
+
+        if (size < capacity) {
+            heapSlots[size] = slot;
+            heapScores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+
+        if (!isBetter(slot, score, heapSlots[0], heapScores[0])) {
+            return false;
+        }
+
+        heapSlots[0] = slot;
+        heapScores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drain the kept slots, best first. Scores are written to {@code scoresOut}
+     * at the same positions. The selector is empty afterwards.
+     */
+    public int[] drainBestFirst(float[] scoresOut) {
+        int count = size;
+        int[] result = new int[count];
+
+        // Repeatedly remove the worst element and fill the output from the back
+        for (int i = count - 1; i >= 0; i--) {
+            result[i] = heapSlots[0];
+            scoresOut[i] = heapScores[0];
+
+            size--;
+            heapSlots[0] = heapSlots[size];
+            heapScores[0] = heapScores[size];
+            if (size > 0) {
+                siftDown(0);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether (slotA, scoreA) ranks before (slotB, scoreB)
+     */
+    private boolean isBetter(int slotA, float scoreA, int slotB, float scoreB) {
+        int byScore = Float.compare(scoreA, scoreB);
+        if (byScore != 0) {
+            return byScore > 0;
+        }
+        return ids[slotA].compareTo(ids[slotB]) < 0;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBetter(heapSlots[parent], heapScores[parent], heapSlots[index], heapScores[index])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+
+            // Pick the worse child, since the root holds the worst element
+            int worst = left;
+            int right = left + 1;
+            if (right < size && isBetter(heapSlots[left], heapScores[left], heapSlots[right], heapScores[right])) {
+                worst = right;
+            }
+
+            if (!isBetter(heapSlots[index], heapScores[index], heapSlots[worst], heapScores[worst])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int slot = heapSlots[a];
+        heapSlots[a] = heapSlots[b];
+        heapSlots[b] = slot;
+
+        float score = heapScores[a];
+        heapScores[a] = heapScores[b];
+        heapScores[b] = score;
+    }
+}
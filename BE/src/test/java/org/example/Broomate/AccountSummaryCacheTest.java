@@ -0,0 +1,49 @@
+package org.example.Broomate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Broomate.model.AccountSummary;
+import org.example.Broomate.repository.AccountSummaryCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSummaryCacheTest {
+
+    private final AccountSummaryCache cache = new AccountSummaryCache(100, 300, new SimpleMeterRegistry());
+
+    private static AccountSummary summary(String id, String name) {
+        return AccountSummary.builder().id(id).name(name).build();
+    }
+
+    @Test
+    void testPut_LoadRacingAnUpdateIsNotCached() {
+        long loadSequence = cache.beginLoad();
+
+        // The profile is updated while the old document is being read
+        cache.invalidate("user-1");
+        cache.put(summary("user-1", "Old name"), loadSequence);
+
+        assertNull(cache.get("user-1"));
+        System.out.println("✅ Test passed: Stale summary is not put back after invalidation");
+    }
+
+    @Test
+    void testPut_LoadStartedAfterUpdateIsCached() {
+        cache.invalidate("user-1");
+        long loadSequence = cache.beginLoad();
+        cache.put(summary("user-1", "New name"), loadSequence);
+
+        assertEquals("New name", cache.get("user-1").getName());
+        System.out.println("✅ Test passed: Summary read after the update is cached");
+    }
+
+    @Test
+    void testPut_UpdateOfAnotherAccountDoesNotBlockCaching() {
+        long loadSequence = cache.beginLoad();
+        cache.invalidate("user-2");
+        cache.put(summary("user-1", "Name"), loadSequence);
+
+        assertNotNull(cache.get("user-1"));
+        System.out.println("✅ Test passed: Invalidations only affect their own account");
+    }
+}
@@ -5,7 +5,9 @@ import org.example.Broomate.dto.websocket.NewMessageNotification;
 import org.example.Broomate.model.Conversation;
 import org.example.Broomate.repository.AllAuthUserRepository;
 import org.example.Broomate.service.AllAuthUserService;
+import org.example.Broomate.service.ConversationSummaryWriter;
 import org.example.Broomate.service.FileStorageService;
+import org.example.Broomate.service.MessageSideEffectPipeline;
 import org.example.Broomate.service.WebSocketService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +38,12 @@ class AllAuthUserServiceTest {
         @Mock
         private WebSocketService webSocketService;
 
+        @Mock
+        private MessageSideEffectPipeline messagePipeline;
+
+        @Mock
+        private ConversationSummaryWriter summaryWriter;
+
         @InjectMocks
         private AllAuthUserService allAuthUserService;
 
@@ -48,6 +56,12 @@ class AllAuthUserServiceTest {
                 tenantAId = "tenant-a-123";
                 tenantBId = "tenant-b-456";
                 conversationId = "conversation-789";
+
+                // Run deferred side effects inline so they can be verified
+                lenient().doAnswer(invocation -> {
+                        invocation.<Runnable>getArgument(2).run();
+                        return null;
+                }).when(messagePipeline).submit(anyString(), anyString(), any());
         }
 
         @Test
@@ -128,7 +142,9 @@ class AllAuthUserServiceTest {
 
                 // Verify
                 verify(repository, times(1)).saveMessage(any());
-                verify(repository, times(1)).updateConversation(anyString(), any());
+                verify(summaryWriter, times(1)).recordMessage(
+                                eq(conversationId), eq(tenantAId), eq(conversation.getParticipantIds()),
+                                eq("Hello, nice to meet you!"), any());
 
                 System.out.println("✅ Test passed: Message sent successfully");
         }
@@ -5,13 +5,13 @@ import org.example.Broomate.dto.response.guest.AuthResponse;
 import org.example.Broomate.repository.GuestAuthRepository;
 import org.example.Broomate.service.AuthService;
 import org.example.Broomate.service.FileStorageService;
+import org.example.Broomate.service.PasswordHashingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.ConstraintViolation;
@@ -29,7 +29,7 @@ class AuthServiceTest {
     private GuestAuthRepository authRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Mock
     private FileStorageService fileStorageService;
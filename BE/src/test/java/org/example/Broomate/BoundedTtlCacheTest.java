@@ -0,0 +1,77 @@
+package org.example.Broomate;
+
+import org.example.Broomate.util.BoundedTtlCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedTtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+
+    @Test
+    void testGet_ReturnsValueUntilTtlExpires() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 1_000, now::get);
+        cache.put("user1", "Alice");
+
+        now.set(999);
+        assertEquals("Alice", cache.get("user1"));
+
+        now.set(1_000);
+        assertNull(cache.get("user1"));
+
+        BoundedTtlCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.expirations());
+        assertEquals(0, stats.size());
+        System.out.println("✅ Test passed: Entries expire after TTL");
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedWhenFull() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2, 60_000, now::get);
+        cache.put("user1", "Alice");
+        cache.put("user2", "Bob");
+
+        // Touch user1 so user2 becomes least recently used
+        assertEquals("Alice", cache.get("user1"));
+        cache.put("user3", "Carol");
+
+        assertEquals("Alice", cache.get("user1"));
+        assertNull(cache.get("user2"));
+        assertEquals("Carol", cache.get("user3"));
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.size());
+        System.out.println("✅ Test passed: LRU entry evicted when full");
+    }
+
+    @Test
+    void testInvalidate_RemovesEntry() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 60_000, now::get);
+        cache.put("user1", "Alice");
+
+        cache.invalidate("user1");
+
+        assertNull(cache.get("user1"));
+        assertEquals(0.0, cache.stats().hitRate());
+        System.out.println("✅ Test passed: Invalidated entry is gone");
+    }
+
+    @Test
+    void testPut_ExpiresAtEarlierOfTtlAndGivenExpiry() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 1_000, now::get);
+        cache.put("token1", "claims1", 500);
+        cache.put("token2", "claims2", 5_000);
+
+        now.set(500);
+        assertNull(cache.get("token1"));
+        assertEquals("claims2", cache.get("token2"));
+
+        now.set(1_000);
+        assertNull(cache.get("token2"));
+        System.out.println("✅ Test passed: Explicit expiry is capped at the TTL");
+    }
+}
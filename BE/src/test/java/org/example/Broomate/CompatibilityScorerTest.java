@@ -0,0 +1,119 @@
+package org.example.Broomate;
+
+import org.example.Broomate.util.CompatibilityScorer;
+import org.example.Broomate.util.TopKSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatibilityScorerTest {
+
+    private static final int NO_FLAGS = 0;
+
+    @Test
+    void testScore_IdenticalProfilesScoreMaximum() {
+        float score = CompatibilityScorer.score(
+                5_000_000f, 0b011L, CompatibilityScorer.FLAG_COOKING, 12, 20_000,
+                5_000_000f, 0b011L, CompatibilityScorer.FLAG_COOKING, 12, 20_000);
+
+        assertEquals(100f, score, 0.001f);
+        System.out.println("✅ Test passed: Identical profiles score 100");
+    }
+
+    @Test
+    void testScore_CloserBudgetAndDistrictsScoreHigher() {
+        float close = CompatibilityScorer.score(
+                5_000_000f, 0b011L, NO_FLAGS, 12, 20_000,
+                5_500_000f, 0b001L, NO_FLAGS, 12, 20_000);
+        float far = CompatibilityScorer.score(
+                5_000_000f, 0b011L, NO_FLAGS, 12, 20_000,
+                15_000_000f, 0b100L, NO_FLAGS, 12, 20_000);
+
+        assertTrue(close > far);
+        System.out.println("✅ Test passed: Closer budget and districts rank higher");
+    }
+
+    @Test
+    void testScore_MissingValuesAreNeutral() {
+        float score = CompatibilityScorer.score(
+                CompatibilityScorer.NO_BUDGET, 0L, NO_FLAGS, CompatibilityScorer.NO_STAY_LENGTH, CompatibilityScorer.NO_MOVE_IN,
+                CompatibilityScorer.NO_BUDGET, 0L, NO_FLAGS, CompatibilityScorer.NO_STAY_LENGTH, CompatibilityScorer.NO_MOVE_IN);
+
+        // Budget, districts, stay length and move-in are neutral (0.5); all flags match
+        assertEquals(35f + 30f, score, 0.001f);
+        System.out.println("✅ Test passed: Missing values score neutral");
+    }
+
+    @Test
+    void testTopKSelector_KeepsBestOrderedByScoreThenId() {
+        String[] ids = {"d", "a", "c", "b", "e"};
+        float[] scores = {50f, 70f, 70f, 10f, 90f};
+
+        TopKSelector selector = new TopKSelector(3, ids);
+        for (int slot = 0; slot < ids.length; slot++) {
+            selector.offer(slot, scores[slot]);
+        }
+
+        float[] keptScores = new float[selector.size()];
+        int[] kept = selector.drainBestFirst(keptScores);
+
+        assertArrayEquals(new int[]{4, 1, 2}, kept);
+        assertArrayEquals(new float[]{90f, 70f, 70f}, keptScores);
+        System.out.println("✅ Test passed: Top-K keeps best candidates in deck order");
+    }
+
+    @Test
+    void testTopKSelector_MatchesFullSortOnRandomInput() {
+        int candidates = 100_000;
+        int k = 21;
+        Random random = new Random(42);
+
+        String[] ids = new String[candidates];
+        float[] budgets = new float[candidates];
+        long[] districts = new long[candidates];
+        int[] flags = new int[candidates];
+        int[] stays = new int[candidates];
+        int[] moveIns = new int[candidates];
+        for (int i = 0; i < candidates; i++) {
+            ids[i] = String.format("tenant%06d", i);
+            budgets[i] = 2_000_000f + random.nextInt(20) * 500_000f;
+            districts[i] = 1L << random.nextInt(12) | 1L << random.nextInt(12);
+            flags[i] = random.nextInt(16);
+            stays[i] = 1 + random.nextInt(24);
+            moveIns[i] = 20_000 + random.nextInt(180);
+        }
+
+        long start = System.nanoTime();
+        TopKSelector selector = new TopKSelector(k, ids);
+        float[] scores = new float[candidates];
+        for (int i = 1; i < candidates; i++) {
+            scores[i] = CompatibilityScorer.score(
+                    budgets[0], districts[0], flags[0], stays[0], moveIns[0],
+                    budgets[i], districts[i], flags[i], stays[i], moveIns[i]);
+            if (selector.wouldAccept(i, scores[i])) {
+                selector.offer(i, scores[i]);
+            }
+        }
+        float[] keptScores = new float[k];
+        int[] kept = selector.drainBestFirst(keptScores);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        // Reference: full sort by (score desc, id asc)
+        Integer[] order = new Integer[candidates - 1];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i + 1;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byScore = Float.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : ids[a].compareTo(ids[b]);
+        });
+
+        for (int i = 0; i < k; i++) {
+            assertEquals(order[i].intValue(), kept[i]);
+        }
+        System.out.println("✅ Test passed: Top-" + k + " of " + candidates + " candidates in " + elapsedMicros + " µs");
+    }
+}
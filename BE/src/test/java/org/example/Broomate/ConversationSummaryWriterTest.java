@@ -0,0 +1,88 @@
+package org.example.Broomate;
+
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Broomate.repository.AllAuthUserRepository;
+import org.example.Broomate.service.ConversationSummaryWriter;
+import org.example.Broomate.service.ConversationSummaryWriter.PendingSummary;
+import org.example.Broomate.service.MessageSideEffectPipeline;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ConversationSummaryWriterTest {
+
+    private final List<String> participants = List.of("alice", "bob", "carol");
+
+    @Test
+    void testAbsorb_SumsIncrementsAndKeepsLatestPreview() {
+        PendingSummary summary = new PendingSummary();
+        summary.addMessage("alice", participants, "Hi", Timestamp.ofTimeSecondsAndNanos(100, 0));
+
+        PendingSummary later = new PendingSummary();
+        later.addMessage("alice", participants, "Anyone there?", Timestamp.ofTimeSecondsAndNanos(101, 0));
+        summary.absorb(later);
+
+        assertEquals("Anyone there?", summary.getLastMessage());
+        assertEquals(Map.of("alice", 0L), summary.getUnreadValues());
+        assertEquals(Map.of("bob", 2L, "carol", 2L), summary.getUnreadIncrements());
+        System.out.println("✅ Test passed: Coalesced messages add up unread counts");
+    }
+
+    @Test
+    void testAbsorb_ReplyResetsSenderThenCountsFromZero() {
+        PendingSummary summary = new PendingSummary();
+        summary.addMessage("alice", participants, "Hi", Timestamp.ofTimeSecondsAndNanos(100, 0));
+        summary.addMessage("bob", participants, "Hey", Timestamp.ofTimeSecondsAndNanos(101, 0));
+        summary.addMessage("alice", participants, "How are you?", Timestamp.ofTimeSecondsAndNanos(102, 0));
+
+        // Bob replied, so his count restarts at zero and only Alice's later message counts
+        assertEquals(Map.of("alice", 0L, "bob", 1L), summary.getUnreadValues());
+        assertEquals(Map.of("carol", 3L), summary.getUnreadIncrements());
+        System.out.println("✅ Test passed: Sender reset is kept as an absolute count");
+    }
+
+    @Test
+    void testAddMessage_OutOfOrderMessageDoesNotReplacePreview() {
+        PendingSummary summary = new PendingSummary();
+        summary.addMessage("alice", participants, "Second", Timestamp.ofTimeSecondsAndNanos(200, 0));
+        summary.addMessage("bob", participants, "First", Timestamp.ofTimeSecondsAndNanos(199, 0));
+
+        assertEquals("Second", summary.getLastMessage());
+        assertEquals(Timestamp.ofTimeSecondsAndNanos(200, 0), summary.getLastMessageAt());
+        System.out.println("✅ Test passed: Preview keeps the latest message");
+    }
+
+    @Test
+    void testMarkMessagesRead_WritesPendingIncrementsFirst() {
+        AllAuthUserRepository repository = mock(AllAuthUserRepository.class);
+        MessageSideEffectPipeline pipeline = mock(MessageSideEffectPipeline.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(2, Runnable.class).run();
+            return null;
+        }).when(pipeline).submit(anyString(), anyString(), any(Runnable.class));
+
+        ConversationSummaryWriter writer = new ConversationSummaryWriter(repository, pipeline, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "coalesceWindowMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(writer, "start");
+
+        writer.recordMessage("conv-1", "alice", participants, "Hi", Timestamp.ofTimeSecondsAndNanos(100, 0));
+        writer.markMessagesRead("conv-1", "bob", List.of("msg-1"));
+
+        // Bob's +1 for msg-1 is stored before msg-1 is subtracted, not after
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).updateConversationSummary(eq("conv-1"), eq("Hi"), any(),
+                eq(Map.of("alice", 0L)), eq(Map.of("bob", 1L, "carol", 1L)));
+        inOrder.verify(repository).markMessagesRead("conv-1", "bob", List.of("msg-1"));
+        ReflectionTestUtils.invokeMethod(writer, "shutdown");
+        verifyNoMoreInteractions(repository);
+        System.out.println("✅ Test passed: Read decrements run after the pending summary write");
+    }
+}
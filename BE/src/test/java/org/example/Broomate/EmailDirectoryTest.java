@@ -0,0 +1,32 @@
+package org.example.Broomate;
+
+import com.google.cloud.firestore.FirestoreException;
+import io.grpc.Status;
+import org.example.Broomate.repository.EmailDirectory;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailDirectoryTest {
+
+    @Test
+    void testNormalize_TrimsAndLowerCases() {
+        assertEquals("alice@example.com", EmailDirectory.normalize("  Alice@Example.COM "));
+        assertEquals("a%2Fb%25c@example.com", EmailDirectory.documentId("a/b%c@example.com"));
+        System.out.println("✅ Test passed: Emails map to one directory key regardless of case");
+    }
+
+    @Test
+    void testIsAlreadyExists_DetectsCreateConflictOnly() {
+        ExecutionException conflict = new ExecutionException(
+                FirestoreException.forServerRejection(Status.ALREADY_EXISTS, "Document already exists"));
+        ExecutionException unavailable = new ExecutionException(
+                FirestoreException.forServerRejection(Status.UNAVAILABLE, "Backend unavailable"));
+
+        assertTrue(EmailDirectory.isAlreadyExists(conflict));
+        assertFalse(EmailDirectory.isAlreadyExists(unavailable));
+        System.out.println("✅ Test passed: Only ALREADY_EXISTS counts as a taken email");
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.Broomate;
 
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.example.Broomate.config.SupabaseConfig;
 import org.example.Broomate.service.FileStorageService;
 import org.example.Broomate.service.FileValidationService;
@@ -26,6 +27,9 @@ class FileStorageServiceTest {
     @Mock
     private FileValidationService fileValidationService;
 
+    @Mock
+    private CloseableHttpClient storageHttpClient;
+
     @InjectMocks
     private FileStorageService fileStorageService;
 
@@ -0,0 +1,77 @@
+package org.example.Broomate;
+
+import org.example.Broomate.config.OutboundFrameQueue;
+import org.example.Broomate.config.OutboundFrameQueue.Frame;
+import org.example.Broomate.config.OutboundFrameQueue.OfferResult;
+import org.example.Broomate.config.OutboundFrameQueue.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundFrameQueueTest {
+
+    private static Frame frame(String destination, String body) {
+        return new Frame(destination, destination, new TextMessage(body));
+    }
+
+    private static Frame frame(String destination, String type, String body) {
+        return new Frame(destination, destination + "|" + type, new TextMessage(body));
+    }
+
+    @Test
+    void testOffer_DropOldestWhenFull() {
+        OutboundFrameQueue queue = new OutboundFrameQueue(2, OverflowPolicy.DROP_OLDEST);
+        queue.offer(frame("/user/queue/messages", "m1"));
+        queue.offer(frame("/user/queue/swipes", "s1"));
+
+        OfferResult result = queue.offer(frame("/user/queue/messages", "m2"));
+
+        assertTrue(result.accepted());
+        assertEquals("m1", result.dropped().message().getPayload());
+        assertEquals("s1", queue.poll().message().getPayload());
+        assertEquals("m2", queue.poll().message().getPayload());
+        System.out.println("✅ Test passed: Oldest frame dropped when full");
+    }
+
+    @Test
+    void testOffer_CoalesceReplacesOlderFrameForSameKey() {
+        OutboundFrameQueue queue = new OutboundFrameQueue(2, OverflowPolicy.COALESCE);
+        queue.offer(frame("/user/queue/messages", "m1"));
+        queue.offer(frame("/user/queue/swipes", "s1"));
+
+        OfferResult result = queue.offer(frame("/user/queue/swipes", "s2"));
+
+        assertTrue(result.accepted());
+        assertEquals("s1", result.dropped().message().getPayload());
+        assertEquals("m1", queue.poll().message().getPayload());
+        assertEquals("s2", queue.poll().message().getPayload());
+        System.out.println("✅ Test passed: Older frame of the same key replaced");
+    }
+
+    @Test
+    void testOffer_CoalesceKeepsOtherTypesOnTheSameDestination() {
+        OutboundFrameQueue queue = new OutboundFrameQueue(2, OverflowPolicy.COALESCE);
+        queue.offer(frame("/user/queue/conversations", "THREE_WAY_CONVERSATION_CREATED", "c1"));
+        queue.offer(frame("/user/queue/conversations", "CONVERSATION_UPDATED", "u1"));
+
+        OfferResult result = queue.offer(frame("/user/queue/conversations", "CONVERSATION_UPDATED", "u2"));
+
+        assertEquals("u1", result.dropped().message().getPayload());
+        assertEquals("c1", queue.poll().message().getPayload());
+        assertEquals("u2", queue.poll().message().getPayload());
+        System.out.println("✅ Test passed: Only frames of the same type are coalesced");
+    }
+
+    @Test
+    void testOffer_DisconnectRejectsWhenFull() {
+        OutboundFrameQueue queue = new OutboundFrameQueue(1, OverflowPolicy.DISCONNECT);
+        queue.offer(frame("/user/queue/messages", "m1"));
+
+        OfferResult result = queue.offer(frame("/user/queue/messages", "m2"));
+
+        assertFalse(result.accepted());
+        assertEquals(1, queue.size());
+        System.out.println("✅ Test passed: Full queue rejects under DISCONNECT");
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.Broomate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Broomate.service.PasswordHashingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PasswordHashingServiceTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch bcryptRunning = new CountDownLatch(1);
+    private final CountDownLatch releaseBcrypt = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$hash");
+        when(passwordEncoder.encode("slow")).thenAnswer(invocation -> {
+            bcryptRunning.countDown();
+            // BCrypt does not stop on interrupt
+            while (true) {
+                try {
+                    releaseBcrypt.await();
+                    return "$2a$10$slow";
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+
+        service = new PasswordHashingService(passwordEncoder, meterRegistry);
+        ReflectionTestUtils.setField(service, "bcryptStrength", 10);
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "timeoutMs", 100L);
+        ReflectionTestUtils.invokeMethod(service, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseBcrypt.countDown();
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("broomate.auth.hashing.in-flight").gauge().value();
+    }
+
+    @Test
+    void testEncode_TimedOutHashKeepsItsSlotUntilBcryptFinishes() throws Exception {
+        assertThrows(ResponseStatusException.class, () -> service.encode("slow"));
+        assertTrue(bcryptRunning.await(1, TimeUnit.SECONDS));
+
+        // The caller gave up, but the hash is still running
+        assertEquals(1.0, inFlight());
+
+        releaseBcrypt.countDown();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (inFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0.0, inFlight());
+        System.out.println("✅ Test passed: Slot released only when BCrypt returns");
+    }
+
+    @Test
+    void testEncode_HashAbandonedWhileQueuedIsSkipped() throws Exception {
+        assertThrows(ResponseStatusException.class, () -> service.encode("slow"));
+        assertTrue(bcryptRunning.await(1, TimeUnit.SECONDS));
+
+        // Queued behind the running hash, times out and frees its slot at once
+        assertThrows(ResponseStatusException.class, () -> service.encode("queued"));
+        assertEquals(1.0, inFlight());
+
+        releaseBcrypt.countDown();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (inFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0.0, inFlight());
+        verify(passwordEncoder, never()).encode("queued");
+        System.out.println("✅ Test passed: Abandoned queued hash never runs");
+    }
+
+    @Test
+    void testEncode_RejectedWhileAllSlotsAreHeld() throws Exception {
+        ReflectionTestUtils.setField(service, "timeoutMs", 1000L);
+        Thread first = new Thread(() -> assertThrows(ResponseStatusException.class, () -> service.encode("slow")));
+        first.start();
+        assertTrue(bcryptRunning.await(1, TimeUnit.SECONDS));
+
+        // Queued behind the running hash: both slots are now held
+        Thread second = new Thread(() -> {
+            try {
+                service.encode("queued");
+            } catch (ResponseStatusException ignored) {
+            }
+        });
+        second.start();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (inFlight() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(ResponseStatusException.class, () -> service.encode("third"));
+        verify(passwordEncoder, never()).encode("third");
+
+        first.join();
+        second.join();
+        System.out.println("✅ Test passed: Hashes beyond threads + queue are rejected");
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.Broomate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Broomate.service.RedisUserMessageRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisUserMessageRelayTest {
+
+    private static final String USER_KEY = "broomate:ws:user:user-1";
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private SimpUserRegistry userRegistry;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisUserMessageRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new RedisUserMessageRelay(messagingTemplate, userRegistry, redisTemplate, listenerContainer,
+                new ObjectMapper());
+        ReflectionTestUtils.setField(relay, "nodeId", "node-a");
+        lenient().when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    private void nodesOfUser(String... nodeIds) {
+        when(hashOperations.keys(USER_KEY)).thenReturn(new LinkedHashSet<>(Arrays.asList(nodeIds)));
+    }
+
+    @Test
+    void testSendToUser_PublishesOnlyToLiveRemoteNodes() {
+        nodesOfUser("node-a", "node-b", "node-c");
+        when(valueOperations.multiGet(List.of("broomate:ws:node-alive:node-b", "broomate:ws:node-alive:node-c")))
+                .thenReturn(Arrays.asList("1", null));
+
+        relay.sendToUser("user-1", "/queue/messages", Map.of("text", "hi"));
+
+        verify(redisTemplate).convertAndSend(eq("broomate:ws:node:node-b"), anyString());
+        verify(redisTemplate, never()).convertAndSend(eq("broomate:ws:node:node-c"), anyString());
+        verify(redisTemplate, never()).convertAndSend(eq("broomate:ws:node:node-a"), anyString());
+        verify(hashOperations, never()).delete(anyString(), any());
+        System.out.println("✅ Test passed: Messages go only to nodes with a live lease");
+    }
+
+    @Test
+    void testSendToUser_DeliversLocallyWithoutRelayWhenOnlyThisNodeListed() {
+        when(userRegistry.getUser("user-1")).thenReturn(mock(SimpUser.class));
+        nodesOfUser("node-a");
+
+        relay.sendToUser("user-1", "/queue/messages", Map.of("text", "hi"));
+
+        verify(messagingTemplate).convertAndSendToUser("user-1", "/queue/messages", Map.of("text", "hi"));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+        verifyNoInteractions(valueOperations);
+        System.out.println("✅ Test passed: Local sessions are served without publishing");
+    }
+
+    @Test
+    void testIsUserConnected_IgnoresExpiredNodes() {
+        nodesOfUser("node-b");
+        when(valueOperations.multiGet(List.of("broomate:ws:node-alive:node-b")))
+                .thenReturn(Arrays.asList((String) null));
+
+        assertFalse(relay.isUserConnected("user-1"));
+        // Left in place, so the node is routed to again if its lease only lapsed
+        verify(hashOperations, never()).delete(anyString(), any());
+        System.out.println("✅ Test passed: A node without a lease no longer counts as presence");
+    }
+
+    @Test
+    void testIsUserConnected_TrueWhenRemoteNodeIsLive() {
+        nodesOfUser("node-b");
+        when(valueOperations.multiGet(List.of("broomate:ws:node-alive:node-b"))).thenReturn(List.of("1"));
+
+        assertTrue(relay.isUserConnected("user-1"));
+        verify(hashOperations, never()).delete(anyString(), any());
+        System.out.println("✅ Test passed: A user on a live node is connected");
+    }
+
+    @Test
+    void testIsUserConnected_StaleEntryOfThisNodeDoesNotCount() {
+        nodesOfUser("node-a");
+
+        // Not in the local registry, so the entry under this node's own ID is left over
+        assertFalse(relay.isUserConnected("user-1"));
+        verifyNoInteractions(valueOperations);
+        System.out.println("✅ Test passed: Own stale entry is not treated as presence");
+    }
+
+    @Test
+    void testIsUserConnected_LocalSessionWinsWithoutRedis() {
+        when(userRegistry.getUser("user-1")).thenReturn(mock(SimpUser.class));
+
+        assertTrue(relay.isUserConnected("user-1"));
+        verify(hashOperations, never()).keys(anyString());
+        System.out.println("✅ Test passed: Local presence needs no Redis read");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSessionDisconnected_DecrementsAndRemovesAtomically() {
+        localSessions().put("session-1", "user-1");
+
+        relay.onSessionDisconnected(new SessionDisconnectEvent(this,
+                MessageBuilder.withPayload(new byte[0]).build(), "session-1", CloseStatus.NORMAL));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(USER_KEY)), eq("node-a"));
+        verify(hashOperations, never()).increment(anyString(), any(), anyLong());
+        verify(hashOperations, never()).delete(anyString(), any());
+        System.out.println("✅ Test passed: Disconnect runs decrement and delete-at-zero as one script");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testHeartbeat_ReAddsMissingEntriesAndExtendsTtl() {
+        localSessions().put("session-1", "user-1");
+        localSessions().put("session-2", "user-1");
+        localSessions().put("session-3", "user-2");
+
+        ReflectionTestUtils.invokeMethod(relay, "heartbeat");
+
+        verify(valueOperations).set(eq("broomate:ws:node-alive:node-a"), eq("1"), any(Duration.class));
+        ArgumentCaptor<SessionCallback<Object>> pipeline = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(redisTemplate).executePipelined(pipeline.capture());
+
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(operations.opsForHash()).thenReturn((HashOperations) hashOperations);
+        when(operations.opsForSet()).thenReturn(setOperations);
+        pipeline.getValue().execute(operations);
+
+        verify(hashOperations).putIfAbsent(USER_KEY, "node-a", "2");
+        verify(hashOperations).putIfAbsent("broomate:ws:user:user-2", "node-a", "1");
+        verify(operations).expire(eq(USER_KEY), any(Duration.class));
+        verify(operations).expire(eq("broomate:ws:user:user-2"), any(Duration.class));
+        verify(setOperations).add(eq("broomate:ws:node-users:node-a"), any(String[].class));
+        System.out.println("✅ Test passed: Heartbeat restores this node's entries and their TTLs");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> localSessions() {
+        return (Map<String, String>) ReflectionTestUtils.getField(relay, "localSessions");
+    }
+
+    @Test
+    void testIsUserConnected_NoEntries() {
+        when(hashOperations.keys(USER_KEY)).thenReturn(Set.of());
+
+        assertFalse(relay.isUserConnected("user-1"));
+        System.out.println("✅ Test passed: User without entries is offline");
+    }
+}
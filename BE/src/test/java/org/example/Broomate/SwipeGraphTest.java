@@ -0,0 +1,96 @@
+package org.example.Broomate;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.example.Broomate.model.Swipe;
+import org.example.Broomate.repository.FirestoreChangeFeed;
+import org.example.Broomate.repository.SwipeGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SwipeGraphTest {
+
+    private final Firestore firestore = mock(Firestore.class, RETURNS_DEEP_STUBS);
+    private final FirestoreChangeFeed changeFeed = mock(FirestoreChangeFeed.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private SwipeGraph graph;
+    private Consumer<List<QueryDocumentSnapshot>> feed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        List<QueryDocumentSnapshot> stored = List.of(like("carol", "alice"));
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocuments()).thenReturn(stored);
+        when(firestore.collection("swipes").whereEqualTo("action", "ACCEPT").get())
+                .thenReturn(ApiFutures.immediateFuture(snapshot));
+
+        graph = new SwipeGraph(firestore, changeFeed, eventPublisher);
+        ArgumentCaptor<Consumer<List<QueryDocumentSnapshot>>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(changeFeed).subscribe(eq("swipes"), eq("createdAt"), subscriber.capture());
+        feed = subscriber.getValue();
+
+        ReflectionTestUtils.invokeMethod(graph, "load");
+    }
+
+    private static QueryDocumentSnapshot like(String likerId, String targetId) {
+        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+        when(doc.toObject(Swipe.class)).thenReturn(Swipe.builder()
+                .swiperId(likerId)
+                .targetId(targetId)
+                .action(Swipe.SwipeActionEnum.ACCEPT)
+                .build());
+        return doc;
+    }
+
+    @Test
+    void testFeedLike_CompletingLocalLikePublishesMatch() {
+        List<QueryDocumentSnapshot> fromOtherNode = List.of(like("bob", "alice"));
+        graph.onLike("alice", "bob");
+
+        feed.accept(fromOtherNode);
+
+        assertTrue(graph.isMutual("alice", "bob"));
+        ArgumentCaptor<SwipeGraph.MutualLikeDiscovered> event = ArgumentCaptor.forClass(SwipeGraph.MutualLikeDiscovered.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("bob", event.getValue().swipe().getSwiperId());
+        System.out.println("✅ Test passed: Like from another node completing a local like is reported");
+    }
+
+    @Test
+    void testFeedLike_RedeliveredOrUnrelatedLikeIsNotReported() {
+        graph.onLike("alice", "bob");
+
+        feed.accept(List.of(like("dave", "alice")));
+        feed.accept(List.of(like("alice", "bob")));
+
+        assertFalse(graph.isMutual("alice", "bob"));
+        verify(eventPublisher, never()).publishEvent(any());
+        System.out.println("✅ Test passed: Only new likes completing a pair are reported");
+    }
+
+    @Test
+    void testFindLikers_IncludesLoadedLocalAndFeedLikes() {
+        graph.onLike("bob", "alice");
+        feed.accept(List.of(like("dave", "alice")));
+
+        assertEquals(List.of("bob", "carol", "dave"), graph.findLikers("alice").stream().sorted().toList());
+        assertTrue(graph.likes("carol", "alice"));
+        assertFalse(graph.likes("alice", "carol"));
+        System.out.println("✅ Test passed: Who-liked-me lists every liker");
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.Broomate;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Broomate.model.Swipe;
+import org.example.Broomate.repository.SwipeWriteBehindBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SwipeWriteBehindBufferTest {
+
+    private final Firestore firestore = mock(Firestore.class);
+    private final CollectionReference swipes = mock(CollectionReference.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SwipeWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        WriteBatch writeBatch = mock(WriteBatch.class);
+        when(writeBatch.commit()).thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("batch rejected")));
+        when(firestore.batch()).thenReturn(writeBatch);
+        when(firestore.collection("swipes")).thenReturn(swipes);
+
+        buffer = new SwipeWriteBehindBuffer(firestore, meterRegistry);
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "capacity", 100);
+        ReflectionTestUtils.setField(buffer, "batchSize", 100);
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(buffer, "maxRetries", 0);
+        ReflectionTestUtils.invokeMethod(buffer, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(buffer, "shutdown");
+    }
+
+    private void stubDocument(String swipeId, boolean writeSucceeds) {
+        DocumentReference doc = mock(DocumentReference.class);
+        when(doc.set(any(Swipe.class))).thenReturn(writeSucceeds
+                ? ApiFutures.immediateFuture(mock(WriteResult.class))
+                : ApiFutures.immediateFailedFuture(new IllegalStateException("write rejected")));
+        when(swipes.document(swipeId)).thenReturn(doc);
+    }
+
+    private static Swipe reject(String id) {
+        return Swipe.builder().id(id).swiperId("alice").targetId(id).action(Swipe.SwipeActionEnum.REJECT).build();
+    }
+
+    @Test
+    void testFlush_FailedBatchFallsBackToSynchronousWrites() {
+        WriteBatch writeBatch = firestore.batch();
+        when(writeBatch.set(any(DocumentReference.class), any(Swipe.class))).thenReturn(writeBatch);
+        stubDocument("s1", true);
+        stubDocument("s2", false);
+        stubDocument("s3", true);
+
+        assertTrue(buffer.offer(reject("s1")));
+        assertTrue(buffer.offer(reject("s2")));
+        assertTrue(buffer.offer(reject("s3")));
+        ReflectionTestUtils.invokeMethod(buffer, "flush");
+
+        verify(swipes.document("s1")).set(any(Swipe.class));
+        verify(swipes.document("s3")).set(any(Swipe.class));
+        assertEquals(2.0, meterRegistry.get("broomate.swipes.write_behind.flushed").counter().count());
+        assertEquals(1.0, meterRegistry.get("broomate.swipes.write_behind.failed").counter().count());
+        assertTrue(buffer.findAllPending().isEmpty());
+        System.out.println("✅ Test passed: Swipes of a failing batch are written one by one, only the bad one dropped");
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.Broomate;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Broomate.config.JwtUtil;
+import org.example.Broomate.config.TokenRevocationRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationRegistryTest {
+
+    private final TokenRevocationRegistry registry = new TokenRevocationRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil(100, 300, new SimpleMeterRegistry());
+
+    @Test
+    void testIsRevoked_RejectsTokensOfOlderGenerationsOnly() {
+        DecodedJWT issuedEarlier = jwtUtil.verifyToken(jwtUtil.generateToken("alice@example.com", "user1", "TENANT", 0));
+        DecodedJWT otherUser = jwtUtil.verifyToken(jwtUtil.generateToken("bob@example.com", "user2", "TENANT", 0));
+        assertFalse(registry.isRevoked("user1", issuedEarlier));
+
+        registry.revokeTokensOf("user1", 1);
+
+        assertTrue(registry.isRevoked("user1", issuedEarlier));
+        assertFalse(registry.isRevoked("user2", otherUser));
+        System.out.println("✅ Test passed: Revocation applies to older tokens of that user only");
+    }
+
+    @Test
+    void testIsRevoked_AcceptsTokenIssuedInTheSameSecondAsRevocation() {
+        registry.revokeTokensOf("user1", 1);
+
+        // Logging in right after a password change must not be rejected
+        DecodedJWT nextLogin = jwtUtil.verifyToken(jwtUtil.generateToken("alice@example.com", "user1", "TENANT", 1));
+
+        assertFalse(registry.isRevoked("user1", nextLogin));
+        System.out.println("✅ Test passed: Token of the new generation accepted immediately");
+    }
+
+    @Test
+    void testIsRevoked_LowerGenerationNeverLowersTheFloor() {
+        registry.revokeTokensOf("user1", 2);
+        registry.revokeTokensOf("user1", 1);
+
+        DecodedJWT generationOne = jwtUtil.verifyToken(jwtUtil.generateToken("alice@example.com", "user1", "TENANT", 1));
+
+        assertTrue(registry.isRevoked("user1", generationOne));
+        System.out.println("✅ Test passed: A late, older revocation does not re-admit tokens");
+    }
+
+    @Test
+    void testIsRevoked_TokenWithoutGenerationClaimCountsAsGenerationZero() {
+        String legacyToken = JWT.create()
+                .withSubject("alice@example.com")
+                .withClaim("userId", "user1")
+                .withClaim("role", "TENANT")
+                .withIssuer("broomate-app")
+                .sign(Algorithm.HMAC256("your-secret-key-change-this-in-production-must-be-at-least-256-bits-long"));
+        DecodedJWT decoded = JWT.decode(legacyToken);
+        assertEquals(0, JwtUtil.tokenGenerationOf(decoded));
+
+        registry.revokeTokensOf("user1", 1);
+
+        assertTrue(registry.isRevoked("user1", decoded));
+        System.out.println("✅ Test passed: Tokens issued before the generation claim are revocable");
+    }
+
+    @Test
+    void testIsRevoked_RegistryStartsEmptyAfterRestart() {
+        DecodedJWT issuedEarlier = jwtUtil.verifyToken(jwtUtil.generateToken("alice@example.com", "user1", "TENANT", 0));
+        registry.revokeTokensOf("user1", 1);
+
+        // Known limitation: revocations live in memory, so a new node (or a restarted one) accepts the
+        // token until it expires, unless broomate.auth.claims-only=false checks the account's generation
+        TokenRevocationRegistry restarted = new TokenRevocationRegistry();
+
+        assertFalse(restarted.isRevoked("user1", issuedEarlier));
+        System.out.println("✅ Test passed: Revocations are per node and not persisted (documented)");
+    }
+
+    @Test
+    void testVerifyToken_ReturnsClaimsOfValidTokenOnly() {
+        String token = jwtUtil.generateToken("alice@example.com", "user1", "TENANT", 0);
+
+        assertNotNull(jwtUtil.verifyToken(token));
+        assertEquals("user1", jwtUtil.verifyToken(token).getClaim("userId").asString());
+        assertEquals("TENANT", jwtUtil.verifyToken(token).getClaim("role").asString());
+        assertNull(jwtUtil.verifyToken(token.substring(0, token.length() - 2) + "xx"));
+        assertSame(jwtUtil.verifyToken(token), jwtUtil.verifyToken(token));
+        System.out.println("✅ Test passed: Only correctly signed tokens are verified, once per token");
+    }
+}
@@ -11,13 +11,17 @@ function ChatWindow({
   onBack,
   isSending = false,
   isLoading = false,
-  compact = false
+  compact = false,
+  hasOlder = false,
+  onLoadOlder
 }) {
   const messagesEndRef = useRef(null);
 
+  // Only follow new messages at the bottom, not older pages prepended at the top
+  const lastMessageId = messages.length > 0 ? messages[messages.length - 1].id : null;
   useEffect(() => {
     messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
-  }, [messages]);
+  }, [lastMessageId]);
 
   if (!conversation) {
     return (
@@ -135,6 +139,16 @@ function ChatWindow({
           </div>
         ) : (
           <>
+            {hasOlder && onLoadOlder && (
+              <div className="text-center mb-4">
+                <button
+                  onClick={onLoadOlder}
+                  className="text-sm text-teal-600 dark:text-teal-400 hover:underline"
+                >
+                  Load earlier messages
+                </button>
+              </div>
+            )}
             {messages.map((msg, index) => {
               const isMyMessage = msg.senderId === currentUserId;
 
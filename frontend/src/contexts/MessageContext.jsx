@@ -27,28 +27,6 @@ export const MessageProvider = ({ children }) => {
   const currentUserId = user.userId;
   const token = localStorage.getItem('token');
 
-  // ✅ NEW: Load read conversations from localStorage
-  const getReadConversations = () => {
-    try {
-      const stored = localStorage.getItem(`readConversations_${currentUserId}`);
-      return stored ? new Set(JSON.parse(stored)) : new Set();
-    } catch {
-      return new Set();
-    }
-  };
-
-  // ✅ NEW: Save read conversations to localStorage
-  const saveReadConversations = (readSet) => {
-    try {
-      localStorage.setItem(
-        `readConversations_${currentUserId}`,
-        JSON.stringify([...readSet])
-      );
-    } catch (error) {
-      console.error('Failed to save read conversations:', error);
-    }
-  };
-
   const fetchConversations = async () => {
     if (!currentUserId) return;
 
@@ -58,23 +36,9 @@ export const MessageProvider = ({ children }) => {
       
       setAllConversations(data.conversations || []);
       
-      // ✅ LOAD READ CONVERSATIONS FROM LOCALSTORAGE
-      const readConversations = getReadConversations();
-      console.log('📖 Read conversations from localStorage:', readConversations.size);
-      
-      // ✅ Determine unread conversations
+      // ✅ Unread counts are kept per user by the server
       const unreadConvIds = (data.conversations || [])
-        .filter(conv => {
-          const convId = conv.id || conv.conversationId;
-          
-          // Conversation is unread if:
-          // 1. It has a last message
-          // 2. It's NOT in the read conversations set
-          const hasMessage = conv.lastMessage && conv.lastMessage.trim() !== '';
-          const isRead = readConversations.has(convId);
-          
-          return hasMessage && !isRead;
-        })
+        .filter(conv => (conv.unreadCount || 0) > 0)
         .map(conv => conv.id || conv.conversationId);
       
       conversationsWithUnreadRef.current = new Set(unreadConvIds);
@@ -117,11 +81,6 @@ export const MessageProvider = ({ children }) => {
             console.log('➕ Adding NEW unread conversation:', payload.conversationId);
             conversationsWithUnreadRef.current.add(payload.conversationId);
             setUnreadConversationsCount(prev => prev + 1);
-            
-            // ✅ Remove from read set in localStorage
-            const readConversations = getReadConversations();
-            readConversations.delete(payload.conversationId);
-            saveReadConversations(readConversations);
           }
           
           // ❌ REMOVED: Do NOT create notification for message
@@ -153,6 +112,10 @@ export const MessageProvider = ({ children }) => {
 
   const markConversationAsRead = (conversationId) => {
     const wasUnread = conversationsWithUnreadRef.current.has(conversationId);
+
+    // ✅ Reset the server-side unread count (also covers counts this tab has not seen yet)
+    messageService.markConversationAsRead(conversationId)
+      .catch(error => console.error('❌ Failed to mark conversation as read:', error));
     
     if (wasUnread) {
       console.log('✅ Marking conversation as read:', conversationId);
@@ -161,12 +124,6 @@ export const MessageProvider = ({ children }) => {
       conversationsWithUnreadRef.current.delete(conversationId);
       setUnreadConversationsCount(prev => Math.max(0, prev - 1));
       
-      // ✅ SAVE TO LOCALSTORAGE
-      const readConversations = getReadConversations();
-      readConversations.add(conversationId);
-      saveReadConversations(readConversations);
-      console.log('💾 Saved read status to localStorage');
-      
       // ✅ Update conversation state
       setAllConversations(prev => 
         prev.map(conv => {
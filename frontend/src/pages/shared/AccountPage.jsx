@@ -179,9 +179,13 @@ function AccountPage() {
         passwordData.confirmPassword
       );
 
-      alert('Password changed successfully!');
+      // Tokens issued before the change are no longer accepted, so log in again
+      alert('Password changed successfully! Please log in with your new password.');
       setShowPasswordModal(false);
       setPasswordData({ currentPassword: '', newPassword: '', confirmPassword: '' });
+      localStorage.removeItem('user');
+      localStorage.removeItem('token');
+      navigate('/login');
 
     } catch (err) {
       console.error('Error changing password:', err);
@@ -203,6 +203,27 @@ function MessagesPage() {
     }
   };
 
+  const handleLoadOlderMessages = async () => {
+    const convId = selectedConversation?.conversationId || selectedConversation?.id;
+    const before = selectedConversation?.olderCursor;
+    if (!convId || !before) {
+      return;
+    }
+
+    try {
+      const data = await messageService.getConversationDetail(convId, { before });
+
+      setMessages(prev => [...(data.messages || []), ...prev]);
+      setSelectedConversation(prev => ({
+        ...prev,
+        olderCursor: data.olderCursor,
+        hasOlder: data.hasOlder,
+      }));
+    } catch (error) {
+      console.error('❌ Error loading older messages:', error);
+    }
+  };
+
   const handleSendMessage = async (content, file = null) => {
     if (!selectedConversation) {
       console.error('❌ No conversation selected');
@@ -311,6 +332,8 @@ function MessagesPage() {
           onSendMessage={handleSendMessage}
           isSending={isSending}
           compact={false}
+          hasOlder={!!selectedConversation?.hasOlder}
+          onLoadOlder={handleLoadOlderMessages}
         />
       </div>
     </div>
@@ -1,6 +1,6 @@
 // FE/src/pages/tenant/FindRoommatesPage.jsx
 
-import React, { useState, useEffect, useCallback } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import { X, Heart, Loader, MapPin, DollarSign, Calendar, ChevronLeft, Sparkles } from 'lucide-react';
 import { useNavigate, useLocation } from 'react-router-dom';
 import tenantService from '../../services/tenantService';
@@ -82,12 +82,19 @@ function MatchModal({ profile, onClose }) {
   );
 }
 
+// Profiles fetched per page; the next page is loaded when the deck runs low
+const PROFILE_PAGE_SIZE = 10;
+const PREFETCH_THRESHOLD = 3;
+
 const FindRoommatesPage = () => {
   const navigate = useNavigate();
   const location = useLocation();
   
   const [profiles, setProfiles] = useState([]);
   const [currentIndex, setCurrentIndex] = useState(0);
+  const [nextCursor, setNextCursor] = useState(null);
+  // Set while the next page is being fetched, so fast swipes don't request it twice
+  const pageFetchInFlight = useRef(false);
   const [isLoading, setIsLoading] = useState(true);
   const [isError, setIsError] = useState(false);
   const [message, setMessage] = useState('Fetching roommate profiles...');
@@ -132,7 +139,8 @@ const FindRoommatesPage = () => {
         console.log('✅ Loaded swiper profile:', swiperProfile);
       } else {
         // ✅ Normal flow: fetch all available profiles
-        const data = await tenantService.getProfiles();
+        const data = await tenantService.getProfiles({ limit: PROFILE_PAGE_SIZE });
+        setNextCursor(data.nextCursor || null);
 
         if (!data.tenants || data.tenants.length === 0) {
           setMessage('No more roommates available right now. Check back later! 🔄');
@@ -315,7 +323,8 @@ const FindRoommatesPage = () => {
         navigate('/dashboard/tenant/find-roommates', { replace: true, state: {} });
         
         // Fetch normal profiles
-        const data = await tenantService.getProfiles();
+        const data = await tenantService.getProfiles({ limit: PROFILE_PAGE_SIZE });
+        setNextCursor(data.nextCursor || null);
         
         if (data.tenants && data.tenants.length > 0) {
           setProfiles(data.tenants);
@@ -328,6 +337,27 @@ const FindRoommatesPage = () => {
       } else {
         // ✅ Normal flow: move to next profile
         setCurrentIndex(prev => prev + 1);
+
+        // Append the next page before the deck runs out
+        if (nextCursor && !pageFetchInFlight.current
+            && profiles.length - (currentIndex + 1) <= PREFETCH_THRESHOLD) {
+          pageFetchInFlight.current = true;
+          try {
+            const data = await tenantService.getProfiles({ limit: PROFILE_PAGE_SIZE, cursor: nextCursor });
+            setNextCursor(data.nextCursor || null);
+            if (data.tenants && data.tenants.length > 0) {
+              // Skip profiles already in the deck
+              setProfiles(prev => {
+                const shown = new Set(prev.map(p => p.id));
+                return [...prev, ...data.tenants.filter(t => !shown.has(t.id))];
+              });
+            }
+          } catch (pageError) {
+            console.error('Error fetching next profile page:', pageError);
+          } finally {
+            pageFetchInFlight.current = false;
+          }
+        }
       }
 
       setShowAIResultDialog(false);
@@ -348,7 +378,8 @@ const FindRoommatesPage = () => {
     // Fetch normal profiles
     setIsLoading(true);
     try {
-      const data = await tenantService.getProfiles();
+      const data = await tenantService.getProfiles({ limit: PROFILE_PAGE_SIZE });
+      setNextCursor(data.nextCursor || null);
       
       if (data.tenants && data.tenants.length > 0) {
         setProfiles(data.tenants);
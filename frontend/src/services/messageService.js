@@ -18,9 +18,14 @@ const messageService = {
    * Get conversation detail with messages
    * Backend: GET /api/user/conversations/{conversationId}
    * Returns: ConversationDetailResponse (with messages, allParticipants, conversationType)
+   *
+   * Messages are paged: the newest page is returned by default.
+   * Pass { before: data.olderCursor } for older messages or { after: data.newerCursor } for newer ones.
    */
-  getConversationDetail: async (conversationId) => {
-    const response = await api.get(`/user/conversations/${conversationId}`);
+  getConversationDetail: async (conversationId, { before, after, limit } = {}) => {
+    const response = await api.get(`/user/conversations/${conversationId}`, {
+      params: { before, after, limit },
+    });
     return response.data;
   },
 
@@ -32,6 +37,19 @@ const messageService = {
     return { messages: data.messages || [] };
   },
 
+  /**
+   * Mark conversation as read
+   * Backend: POST /api/user/conversations/{conversationId}/read
+   * Without messageIds the unread count is reset; with messageIds only those messages are marked read
+   */
+  markConversationAsRead: async (conversationId, messageIds = null) => {
+    const response = await api.post(
+      `/user/conversations/${conversationId}/read`,
+      messageIds ? { messageIds } : undefined
+    );
+    return response.data;
+  },
+
   // ===== SEND MESSAGE =====
   
   /**
@@ -4,8 +4,9 @@ import api from './api';
 const tenantService = {
   // ===== PROFILES =====
   
-  getProfiles: async () => {
-    const response = await api.get('/tenant/profiles');
+  // Returns one page: { tenants, nextCursor, hasMore }
+  getProfiles: async ({ limit, cursor } = {}) => {
+    const response = await api.get('/tenant/profiles', { params: { limit, cursor } });
     return response.data;
   },
 
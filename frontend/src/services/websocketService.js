@@ -138,6 +138,39 @@ class WebSocketService {
               console.log('✅ Subscribed to conversations');
               console.log('📋 Subscription ID:', conversationSubscription.id);
 
+              // ✅ Offline inbox: the server replays missed notifications in one frame
+              // right after this subscription (must stay last, after the queues above);
+              // they are replayed again on the next connect until acknowledged
+              const callbacksByDestination = {
+                '/queue/messages': () => this.messageCallbacks,
+                '/queue/swipes': () => this.swipeCallbacks,
+                '/queue/conversations': () => this.conversationCallbacks,
+              };
+
+              this.client.subscribe(`/user/queue/inbox`, (message) => {
+                const replay = JSON.parse(message.body);
+                console.log(`📬 Replaying ${replay.notifications?.length || 0} offline notification(s)`);
+
+                (replay.notifications || []).forEach(({ destination, payload }) => {
+                  const callbacks = callbacksByDestination[destination]?.() || [];
+                  callbacks.forEach(callback => {
+                    try {
+                      callback(payload);
+                    } catch (error) {
+                      console.error('❌ Error in replayed notification callback:', error);
+                    }
+                  });
+                });
+
+                // Tell the server the replay arrived, so it can clear the inbox
+                if (replay.ackCursor) {
+                  this.client.publish({
+                    destination: '/app/inbox/ack',
+                    body: JSON.stringify({ ackCursor: replay.ackCursor }),
+                  });
+                }
+              });
+
               this.isConnecting = false;
               resolve();
             } catch (error) {